@@ -1,10 +1,11 @@
 plugins {
     java
-    id("org.springframework.boot") version "2.7.6"
+    id("org.springframework.boot") version "2.7.18"
     id("io.spring.dependency-management") version "1.0.15.RELEASE"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
-java.sourceCompatibility = JavaVersion.VERSION_17
+java.sourceCompatibility = JavaVersion.VERSION_21
 
 repositories {
     mavenCentral()
@@ -12,15 +13,43 @@ repositories {
 
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-rsocket")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation("io.vavr:vavr:0.10.4")
     implementation("io.vavr:vavr-jackson:0.10.3")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("io.r2dbc:r2dbc-pool")
+    implementation("io.r2dbc:r2dbc-h2")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
 
+    jmh("io.micrometer:micrometer-registry-prometheus")
+    jmh("io.projectreactor.tools:blockhound:1.0.8.RELEASE")
+
     testImplementation("org.junit.jupiter:junit-jupiter-api")
+    testImplementation("io.projectreactor:reactor-test")
+    testImplementation("io.projectreactor.tools:blockhound:1.0.8.RELEASE")
+    testImplementation("net.jqwik:jqwik:1.6.5")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // BlockHound instruments JDK classes
+    jvmArgs("-XX:+AllowRedefinitionToAddDeleteMethods")
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Open loop load test of the findHelp route with and without the adaptive limiter"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("app.LoadSheddingLoadTest")
+}
+
+jmh {
+    jmhVersion.set("1.36")
+    profilers.add("gc")
+    resultFormat.set("JSON")
 }
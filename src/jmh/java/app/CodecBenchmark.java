@@ -0,0 +1,94 @@
+package app;
+
+import app.command.AskForHelp;
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.weakness.Weakness;
+import app.entities.Problem;
+import app.error.ErrorDto;
+import app.service.FindHelpService.HelpResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.jackson.datatype.VavrModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a HelpResult and a list of ErrorDto, decoding an AskForHelp, in JSON, CBOR and Smile.
+ * The payload sizes are printed by the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private HelpResult helpResult;
+    private List<ErrorDto> errors;
+    private byte[] askForHelp;
+
+    @Setup
+    public void setup() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = new ObjectMapper(factory)
+                .registerModule(new VavrModule())
+                .registerModule(new ParameterNamesModule());
+        Superhero luffy = Superhero.builder()
+                .id("luffy")
+                .name("luffy")
+                .isAvailable(true)
+                .weaknesses(List.of(Weakness.Dumb, Weakness.Water))
+                .abilities(List.of(Ability.ElasticBody, Ability.Strength, Ability.DoNotGiveUp))
+                .build();
+        helpResult = HelpResult.builder().hero(luffy).matchingAbilities(List.of(Ability.ElasticBody)).build();
+        errors = List.of(
+                new ErrorDto("Couldn't find the required ability for your problem", Option.none()),
+                new ErrorDto("Weaknesses found : [Water]", Option.some("weaknesses"))
+        );
+        askForHelp = mapper.writeValueAsBytes(new AskForHelp("luffy", Problem.SuperVilain));
+        System.out.printf("%n%s sizes: HelpResult %d bytes, errors %d bytes, AskForHelp %d bytes%n",
+                format, encodeHelpResult().length, encodeErrors().length, askForHelp.length);
+    }
+
+    @Benchmark
+    public byte[] encodeHelpResult() throws IOException {
+        return mapper.writeValueAsBytes(helpResult);
+    }
+
+    @Benchmark
+    public byte[] encodeErrors() throws IOException {
+        return mapper.writeValueAsBytes(errors);
+    }
+
+    @Benchmark
+    public AskForHelp decodeAskForHelp() throws IOException {
+        return mapper.readValue(askForHelp, AskForHelp.class);
+    }
+}
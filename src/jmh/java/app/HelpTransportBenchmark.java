@@ -0,0 +1,79 @@
+package app;
+
+import app.command.AskForHelp;
+import app.entities.Problem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * The same findHelp command over HTTP (JSON) and over RSocket request-response (CBOR), against the application
+ * started on loopback. Throughput and sampled latencies (p99 in the SampleTime results). Responses are not decoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class HelpTransportBenchmark {
+
+    private static final AskForHelp COMMAND = new AskForHelp("luffy", Problem.SuperVilain);
+
+    private ConfigurableApplicationContext context;
+    private WebClient webClient;
+    private RSocketRequester requester;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(App.class)
+                .properties("server.port=0", "spring.rsocket.server.port=0")
+                .run();
+        Environment environment = context.getEnvironment();
+        webClient = WebClient.create("http://localhost:" + environment.getProperty("local.server.port"));
+        requester = context.getBean(RSocketRequester.Builder.class)
+                .tcp("localhost", environment.getProperty("local.rsocket.server.port", Integer.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        requester.dispose();
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] rsocket() {
+        return requester.route("helps.command").data(COMMAND).retrieveMono(byte[].class).block();
+    }
+
+    @Benchmark
+    public byte[] http() {
+        return webClient.post()
+                .uri("/api/helps/_command")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .bodyValue(COMMAND)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block();
+    }
+}
@@ -0,0 +1,113 @@
+package app;
+
+import app.command.AskForHelp;
+import app.entities.Problem;
+import io.vavr.collection.List;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Open loop load test of /api/helps/_command against the slow backend (profile slow, see superheroes.slow):
+ * requests are sent at a fixed rate whatever the response times, once with the limiter and once without.
+ * For each problem, prints the count of each status (-1 for a timeout) and the latencies of the answered requests
+ * (200 or 400, the help found or not).
+ * <p>
+ * Arguments: requests per second (default 3000), duration in seconds (default 20).
+ * Run with ./gradlew loadTest --args='3000 20'
+ */
+public class LoadSheddingLoadTest {
+
+    private static final List<Problem> PROBLEMS = List.of(Problem.values());
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    public static void main(String[] args) {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+        for (boolean limiter : new boolean[]{true, false}) {
+            System.out.println("limiter enabled: " + limiter + ", " + rate + " requests/s for " + duration);
+            run(limiter, rate, duration).print();
+        }
+    }
+
+    private static Report run(boolean limiter, int rate, Duration duration) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class)
+                .profiles("slow")
+                .properties("server.port=0", "spring.rsocket.server.port=0", "helps.limiter.enabled=" + limiter)
+                .run()) {
+            // As many connections as needed: the client must not be the bottleneck
+            HttpClient httpClient = HttpClient.create(ConnectionProvider.builder("load-test").maxConnections(10_000).pendingAcquireMaxCount(-1).build());
+            WebClient webClient = WebClient.builder()
+                    .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .build();
+            Report report = new Report();
+            long ticks = duration.toMillis() / TICK.toMillis();
+            int perTick = Math.max(1, (int) (rate * TICK.toMillis() / 1000));
+            Flux.interval(TICK)
+                    .take(ticks)
+                    .flatMapIterable(tick -> List.range(0, perTick).map(i -> PROBLEMS.get((int) ((tick * perTick + i) % PROBLEMS.size()))))
+                    .flatMap(problem -> call(webClient, problem, report), Integer.MAX_VALUE)
+                    .blockLast();
+            return report;
+        }
+    }
+
+    private static Mono<Void> call(WebClient webClient, Problem problem, Report report) {
+        long start = System.nanoTime();
+        return webClient.post()
+                .uri("/api/helps/_command")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .bodyValue(new AskForHelp("luffy", problem))
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()))
+                .timeout(Duration.ofSeconds(10))
+                .onErrorReturn(-1)
+                .doOnNext(status -> report.record(problem, status, System.nanoTime() - start))
+                .then();
+    }
+
+    private static final class Report {
+
+        private final Map<Problem, Map<Integer, LongAdder>> statuses = new ConcurrentHashMap<>();
+        private final Map<Problem, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+
+        void record(Problem problem, int status, long nanos) {
+            statuses.computeIfAbsent(problem, __ -> new ConcurrentHashMap<>()).computeIfAbsent(status, __ -> new LongAdder()).increment();
+            if (status == 200 || status == 400) {
+                latencies.computeIfAbsent(problem, __ -> new ConcurrentLinkedQueue<>()).add(nanos);
+            }
+        }
+
+        void print() {
+            for (Problem problem : PROBLEMS) {
+                Map<Integer, Long> counts = new TreeMap<>();
+                statuses.getOrDefault(problem, Map.of()).forEach((status, count) -> counts.put(status, count.sum()));
+                List<Long> sorted = List.ofAll(latencies.getOrDefault(problem, new ConcurrentLinkedQueue<>())).sorted();
+                System.out.printf("  %-14s statuses %s, answered p50 %s ms, p99 %s ms%n",
+                        problem, counts, percentileMillis(sorted, 0.5), percentileMillis(sorted, 0.99));
+            }
+        }
+
+        private static String percentileMillis(List<Long> sorted, double percentile) {
+            if (sorted.isEmpty()) {
+                return "-";
+            }
+            return String.valueOf(sorted.get((int) Math.min(sorted.size() - 1, sorted.size() * percentile)) / 1_000_000);
+        }
+    }
+}
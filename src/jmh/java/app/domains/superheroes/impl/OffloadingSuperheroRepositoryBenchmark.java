@@ -0,0 +1,82 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import io.BlockingExecution;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 10k concurrent lookups on a blocking backend (each lookup blocks its thread for 1ms, like a JDBC round trip),
+ * offloaded on virtual threads or on the bounded elastic pool.
+ * <p>
+ * The peak number of platform threads of each iteration is printed: virtual threads are not counted,
+ * their carriers are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OffloadingSuperheroRepositoryBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 10_000;
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"VIRTUAL_THREADS", "BOUNDED_ELASTIC"})
+    public BlockingExecution execution;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private OffloadingSuperheroRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new OffloadingSuperheroRepository(new BlockingRepository(), execution.scheduler());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakThreads() {
+        threads.resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakThreads() {
+        System.out.println(execution + " peak platform threads: " + threads.getPeakThreadCount());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public Long findByName() {
+        return Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> repository.findByName(i % 2 == 0 ? "luffy" : "superman"), CONCURRENT_REQUESTS)
+                .count()
+                .block();
+    }
+
+    private static final class BlockingRepository extends InMemorySuperheroRepository {
+        @Override
+        public Mono<Option<Superhero>> findByName(String name) {
+            return super.findByName(name).doOnSubscribe(__ -> LockSupport.parkNanos(LATENCY_NANOS));
+        }
+    }
+}
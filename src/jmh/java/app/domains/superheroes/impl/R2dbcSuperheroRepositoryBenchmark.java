@@ -0,0 +1,86 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the R2DBC repository on an in memory H2 database.
+ * <p>
+ * The lookups are issued from the parallel scheduler, whose threads play the event loop role. BlockHound is installed
+ * so that any blocking call made on these threads by the repository, the pool or the driver fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:+AllowRedefinitionToAddDeleteMethods")
+public class R2dbcSuperheroRepositoryBenchmark {
+
+    private static final int HEROES = 1000;
+    private static final int CONCURRENT_REQUESTS = 256;
+
+    private ConnectionPool pool;
+    private R2dbcSuperheroRepository repository;
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BlockHound.install();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get("r2dbc:h2:mem:///benchmark?options=DB_CLOSE_DELAY=-1"))
+                .initialSize(4)
+                .maxSize(16)
+                .maxAcquireTime(Duration.ofSeconds(5))
+                .build());
+        repository = new R2dbcSuperheroRepository(pool);
+        repository.createSchema().block();
+        names = List.range(0, HEROES).map(i -> "hero" + i);
+        Flux.fromIterable(names).concatMap(name -> repository.save(new Superhero(name, name))).blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public List<Option<Superhero>> findByName() {
+        return List.ofAll(Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> repository.findByName(names.get(i % HEROES)).subscribeOn(Schedulers.parallel()), CONCURRENT_REQUESTS)
+                .collectList()
+                .block());
+    }
+
+    @Benchmark
+    public Map<String, Superhero> findAllByNames() {
+        return repository.findAllByNames(HashSet.ofAll(names.take(100)))
+                .subscribeOn(Schedulers.parallel())
+                .block();
+    }
+}
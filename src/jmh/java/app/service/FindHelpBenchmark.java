@@ -0,0 +1,99 @@
+package app.service;
+
+import app.command.AskForHelp;
+import app.domains.abilities.Abilities;
+import app.domains.superheroes.SuperHeroes;
+import app.domains.superheroes.impl.InMemorySuperheroRepository;
+import app.domains.weakness.Weaknesses;
+import app.entities.Problem;
+import app.service.FindHelpService.HelpErrors;
+import app.service.FindHelpService.HelpResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.Bulkhead;
+import io.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full findHelp call against the in memory repository, for each kind of outcome.
+ * <p>
+ * metrics=noop runs with a registry without backend (meters are no-ops), metrics=prometheus records the stage meters.
+ * Budget: the prometheus run must keep at least 95% of the noop throughput.
+ * <p>
+ * cacheSize=0 computes every result, cacheSize=10000 serves them from the HelpResultCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindHelpBenchmark {
+
+    @Param({"noop", "prometheus"})
+    public String metrics;
+
+    @Param({"0", "10000"})
+    public long cacheSize;
+
+    private FindHelpService findHelpService;
+
+    @Setup
+    public void setup() {
+        MeterRegistry meterRegistry = meterRegistry();
+        InMemorySuperheroRepository repository = new InMemorySuperheroRepository();
+        findHelpService = new FindHelpService(
+                new SuperHeroes(
+                        repository,
+                        new CircuitBreaker("superhero-repository", 100, 20, 0.5, Duration.ofSeconds(10), 5, meterRegistry),
+                        new Bulkhead("superhero-repository", 256, meterRegistry),
+                        meterRegistry,
+                        Duration.ofSeconds(2), 2, Duration.ofMillis(50), Duration.ofMillis(20)),
+                new Abilities(),
+                new Weaknesses(),
+                new HelpResultCache(repository, new ObjectMapper(), meterRegistry, cacheSize, false),
+                meterRegistry
+        );
+    }
+
+    private MeterRegistry meterRegistry() {
+        return metrics.equals("prometheus") ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT) : new CompositeMeterRegistry();
+    }
+
+    @Benchmark
+    public Either<HelpErrors, HelpResult> helpFound() {
+        return findHelpService.findHelp(new AskForHelp("luffy", Problem.SuperVilain)).block();
+    }
+
+    @Benchmark
+    public Either<HelpErrors, HelpResult> severalErrors() {
+        return findHelpService.findHelp(new AskForHelp("luffy", Problem.FellIntoWater)).block();
+    }
+
+    @Benchmark
+    public Either<HelpErrors, HelpResult> superheroUnavailable() {
+        return findHelpService.findHelp(new AskForHelp("superman", Problem.CarAccident)).block();
+    }
+
+    @Benchmark
+    public Either<HelpErrors, HelpResult> superheroUnknown() {
+        return findHelpService.findHelp(new AskForHelp("batman", Problem.CarAccident)).block();
+    }
+}
@@ -0,0 +1,89 @@
+package io;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Seq;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * parSequence of 16 branches where the first two fail at once and the others take 10ms, for each error strategy.
+ * <p>
+ * Each branch stands for a repository call and counts its subscriptions, completions and cancellations, printed after
+ * each iteration: with failFast and firstErrors2 the slow branches must all be cancelled (or never subscribed to), with
+ * accumulateAll they all complete.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorStrategyBenchmark {
+
+    private static final int BRANCHES = 16;
+    private static final int FAILING_BRANCHES = 2;
+    private static final Duration SLOW_CALL = Duration.ofMillis(10);
+
+    @Param({"accumulateAll", "failFast", "firstErrors2"})
+    public String strategy;
+
+    private ErrorStrategy errorStrategy;
+    private Seq<IO<String, Integer>> branches;
+    private final LongAdder subscribed = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    @Setup
+    public void setup() {
+        errorStrategy = switch (strategy) {
+            case "failFast" -> ErrorStrategy.failFast();
+            case "firstErrors2" -> ErrorStrategy.firstErrors(2);
+            default -> ErrorStrategy.accumulateAll();
+        };
+        branches = List.range(0, BRANCHES).map(this::call);
+    }
+
+    private IO<String, Integer> call(int index) {
+        Mono<Either<String, Integer>> result = index < FAILING_BRANCHES
+                ? Mono.just(Either.left("branch " + index + " failed"))
+                : Mono.delay(SLOW_CALL).thenReturn(Either.right(index));
+        return IO.fromMonoEither(result
+                .doOnSubscribe(__ -> subscribed.increment())
+                .doOnSuccess(__ -> completed.increment())
+                .doOnCancel(cancelled::increment));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        subscribed.reset();
+        completed.reset();
+        cancelled.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        System.out.println(strategy + ": subscribed " + subscribed.sum() + ", completed " + completed.sum() + ", cancelled " + cancelled.sum());
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Seq<Integer>> parSequence() {
+        return IO.parSequence(branches, errorStrategy).block();
+    }
+}
@@ -0,0 +1,71 @@
+package io;
+
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a map/flatMap chain on IO, pure or backed by a Mono, compared to the same chain on a plain Mono<Either>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IOBenchmark {
+
+    private static final int CHAIN_LENGTH = 10;
+
+    @Benchmark
+    public Either<String, Integer> pureIOChain() {
+        IO<String, Integer> io = IO.succeed(0);
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            io = io.map(n -> n + 1).flatMap(n -> IO.succeed(n * 2));
+        }
+        return io.block();
+    }
+
+    @Benchmark
+    public Either<String, Integer> asyncIOChain() {
+        IO<String, Integer> io = IO.fromMono(Mono.just(0));
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            io = io.map(n -> n + 1).flatMap(n -> IO.fromMono(Mono.just(n * 2)));
+        }
+        return io.block();
+    }
+
+    @Benchmark
+    public Either<String, Integer> monoEitherChain() {
+        Mono<Either<String, Integer>> mono = Mono.just(Either.right(0));
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            mono = mono
+                    .map(either -> either.map(n -> n + 1))
+                    .flatMap(either -> either.fold(
+                            err -> Mono.just(Either.<String, Integer>left(err)),
+                            n -> Mono.just(Either.<String, Integer>right(n * 2))
+                    ));
+        }
+        return mono.block();
+    }
+
+    @Benchmark
+    public Either<String, Integer> pureIOChainWithError() {
+        IO<String, Integer> io = IO.succeed(0);
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            io = io.flatMap(n -> n > 4 ? IO.<String, Integer>error("too big") : IO.succeed(n + 1))
+                    .mapError(err -> err + "!");
+        }
+        return io.block();
+    }
+}
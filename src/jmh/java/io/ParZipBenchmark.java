@@ -0,0 +1,107 @@
+package io;
+
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parZip for arities 2 to 5 and validate(...).andReturn(...), on succeeding and failing branches.
+ * <p>
+ * With outcome=failure, gc.alloc.rate.norm gives the allocation cost of accumulating the errors.
+ * appendErrors / appendList compare chained appends (as AppErrors.combine does) on Errors and on a vavr List.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParZipBenchmark {
+
+    @Param({"pure", "async"})
+    public String kind;
+
+    @Param({"success", "failure"})
+    public String outcome;
+
+    private IO<String, Integer> io1;
+    private IO<String, Integer> io2;
+    private IO<String, Integer> io3;
+    private IO<String, Integer> io4;
+    private IO<String, Integer> io5;
+
+    @Setup
+    public void setup() {
+        io1 = branch(1);
+        io2 = branch(2);
+        io3 = branch(3);
+        io4 = branch(4);
+        io5 = branch(5);
+    }
+
+    private IO<String, Integer> branch(int value) {
+        boolean failing = outcome.equals("failure") && value % 2 == 1;
+        if (kind.equals("pure")) {
+            return failing ? IO.error("error " + value) : IO.succeed(value);
+        } else {
+            return failing ? IO.fromMonoEither(Mono.just(Either.left("error " + value))) : IO.fromMono(Mono.just(value));
+        }
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Integer> parZip2() {
+        return IO.parZip(io1, io2, Integer::sum).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Integer> parZip3() {
+        return IO.parZip(io1, io2, io3, (a, b, c) -> a + b + c).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Integer> parZip4() {
+        return IO.parZip(io1, io2, io3, io4, (a, b, c, d) -> a + b + c + d).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Integer> parZip5() {
+        return IO.parZip(io1, io2, io3, io4, io5, (a, b, c, d, e) -> a + b + c + d + e).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Tuple0> validate() {
+        return IO.<String>validate(io1, io2, io3, io4, io5).andReturn(Tuple0.instance()).block();
+    }
+
+    @Benchmark
+    public List<String> appendErrors() {
+        Errors<String> errors = Errors.empty();
+        for (int i = 0; i < 5; i++) {
+            errors = errors.concat(Errors.of("error " + i));
+        }
+        return errors.toList();
+    }
+
+    @Benchmark
+    public List<String> appendList() {
+        List<String> errors = List.empty();
+        for (int i = 0; i < 5; i++) {
+            errors = errors.appendAll(List.of("error " + i));
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,90 @@
+package io;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Seq;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sequence / traverse / parSequence at several sizes, on pure and Mono backed elements.
+ * <p>
+ * foldSequence is a copy of the former, Mono only, implementation of IO.sequence (a foldLeft of flatMap + append),
+ * kept as a baseline: it runs on the Mono of each element whatever its kind, as every IO was a Mono back then.
+ * It is quadratic and its subscription depth grows with the size, hence the larger thread stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m")
+public class SequenceBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    @Param({"pure", "async"})
+    public String kind;
+
+    private List<Integer> ids;
+    private Seq<IO<String, Integer>> ios;
+    private Seq<Mono<Either<String, Integer>>> monos;
+
+    @Setup
+    public void setup() {
+        ids = List.range(0, size);
+        ios = ids.map(this::lookup);
+        monos = ios.map(IO::unlift);
+    }
+
+    private IO<String, Integer> lookup(Integer id) {
+        return kind.equals("pure") ? IO.succeed(id) : IO.fromMono(Mono.just(id));
+    }
+
+    @Benchmark
+    public Either<String, Seq<Integer>> sequence() {
+        return IO.sequence(ios).block();
+    }
+
+    @Benchmark
+    public Either<String, Seq<Integer>> foldSequence() {
+        return foldSequence(monos).block();
+    }
+
+    private static <E, A> Mono<Either<E, Seq<A>>> foldSequence(Seq<Mono<Either<E, A>>> seq) {
+        return seq.foldLeft(Mono.just(Either.<E, Seq<A>>right(List.empty())), (acc, elt) ->
+                acc.flatMap(eitherAcc -> eitherAcc.fold(
+                        err -> Mono.just(Either.<E, Seq<A>>left(err)),
+                        current -> elt.map(either -> either.map(current::append))
+                ))
+        );
+    }
+
+    @Benchmark
+    public Either<String, Seq<Integer>> traverse() {
+        return IO.traverse(ids, this::lookup).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Seq<Integer>> parSequence() {
+        return IO.parSequence(ios).block();
+    }
+
+    @Benchmark
+    public Either<Errors<String>, Seq<Integer>> parTraverse() {
+        return IO.parTraverse(ids, this::lookup).block();
+    }
+}
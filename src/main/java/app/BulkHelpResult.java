@@ -0,0 +1,16 @@
+package app;
+
+import app.command.AskForHelp;
+import app.error.ErrorDto;
+import app.service.FindHelpService.HelpResult;
+import io.vavr.collection.List;
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class BulkHelpResult {
+    AskForHelp command;
+    HelpResult result;
+    List<ErrorDto> errors;
+}
@@ -0,0 +1,43 @@
+package app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * CBOR and Smile codecs, built from the same Jackson configuration as JSON (vavr module included).
+ * Smile replaces the default codec, CBOR is added as a custom one: both come after the JSON codec, so JSON stays the
+ * default when the client accepts anything.
+ */
+@Configuration
+public class CodecsConfiguration implements WebFluxConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public CodecsConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper cborMapper = objectMapperBuilder.getObject().factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = objectMapperBuilder.getObject().factory(new SmileFactory()).build();
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+        // CBOR is not one of the default codecs
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborEncoder(cborMapper));
+    }
+}
@@ -1,31 +1,179 @@
 package app;
 
 import app.command.AskForHelp;
+import app.entities.Problem;
+import app.error.ErrorDto;
 import app.service.FindHelpService;
+import app.service.FindHelpService.HelpResult;
+import app.service.HelpResultCache;
+import app.service.RankHeroesService;
+import app.service.RankHeroesService.RankedHero;
+import app.service.StandingAssignmentsService;
+import app.service.StandingAssignmentsService.AssignmentDelta;
+import app.service.StandingAssignmentsService.AssignmentQuery;
+import io.Errors;
+import io.IO;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+import static org.springframework.web.reactive.function.BodyInserters.fromServerSentEvents;
+
 @Component
 public class HelpApi {
 
+    private final static Logger LOGGER = LoggerFactory.getLogger(HelpApi.class);
+
+    // The findHelp command, when it was already decoded by a filter
+    static final String COMMAND = HelpApi.class.getName() + ".command";
+
+    private static final int DEFAULT_RANKING_LIMIT = 10;
+
     private final FindHelpService findHelpService;
+    private final RankHeroesService rankHeroesService;
+    private final HelpResultCache helpResultCache;
+    private final StandingAssignmentsService standingAssignmentsService;
+    private final int bulkConcurrency;
+    private final Duration watchHeartbeat;
 
-    public HelpApi(FindHelpService findHelpService) {
+    public HelpApi(FindHelpService findHelpService,
+                   RankHeroesService rankHeroesService,
+                   HelpResultCache helpResultCache,
+                   StandingAssignmentsService standingAssignmentsService,
+                   @Value("${helps.bulk.concurrency}") int bulkConcurrency,
+                   @Value("${helps.watch.heartbeat}") Duration watchHeartbeat) {
         this.findHelpService = findHelpService;
+        this.rankHeroesService = rankHeroesService;
+        this.helpResultCache = helpResultCache;
+        this.standingAssignmentsService = standingAssignmentsService;
+        this.bulkConcurrency = bulkConcurrency;
+        this.watchHeartbeat = watchHeartbeat;
     }
 
     public Mono<ServerResponse> findHelp(ServerRequest request) {
-        return request
-                .bodyToMono(AskForHelp.class)
+        return request.attribute(COMMAND)
+                .map(command -> Mono.just((AskForHelp) command))
+                .orElseGet(() -> request.bodyToMono(AskForHelp.class))
                 .flatMap(command ->
                     findHelpService.findHelp(command)
                         .foldMono(
-                             helpErrors -> ServerResponse.badRequest().bodyValue(helpErrors.dtoErrors()),
-                             ok -> ServerResponse.ok().bodyValue(ok)
+                             helpErrors -> helpErrors.isUnavailable()
+                                     ? ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).bodyValue(helpErrors.dtoErrors())
+                                     : ServerResponse.badRequest().bodyValue(helpErrors.dtoErrors()),
+                             ok -> helpResult(request, ok)
                         )
                 );
     }
 
+    // A cached result is written with the JSON bytes encoded the first time it was served
+    private Mono<ServerResponse> helpResult(ServerRequest request, HelpResult result) {
+        // Checked first, so a client asking for another format doesn't encode the JSON for nothing
+        Option<byte[]> json = prefersJson(request) ? helpResultCache.json(result) : Option.none();
+        return json
+                .map(json -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(json))
+                .getOrElse(() -> ServerResponse.ok().bodyValue(result));
+    }
+
+    private static boolean prefersJson(ServerRequest request) {
+        java.util.List<MediaType> accept = new ArrayList<>(request.headers().accept());
+        MediaType.sortBySpecificityAndQuality(accept);
+        return accept.isEmpty() || accept.get(0).isCompatibleWith(APPLICATION_JSON);
+    }
+
+    public Mono<ServerResponse> findHelps(ServerRequest request) {
+        // The commands are decoded one by one from the body (json array or ndjson) and at most
+        // bulkConcurrency of them are in progress, so the upload is consumed as results are written.
+        boolean completionOrder = request.queryParam("order").filter("completion"::equals).isPresent();
+        Flux<AskForHelp> commands = request.bodyToFlux(AskForHelp.class);
+        Flux<BulkHelpResult> results = completionOrder
+                ? commands.flatMap(this::findHelpResult, bulkConcurrency)
+                : commands.flatMapSequential(this::findHelpResult, bulkConcurrency);
+        return ServerResponse.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(results, BulkHelpResult.class);
+    }
+
+    public Mono<ServerResponse> findBestHeroes(ServerRequest request) {
+        Either<ErrorDto, Problem> problem = Try.of(() -> Problem.valueOf(request.queryParam("problem").orElseThrow()))
+                .toEither(new ErrorDto("A valid problem is required", Option.of("problem")));
+        Either<ErrorDto, Integer> limit = Try.of(() -> request.queryParam("limit").map(Integer::valueOf).orElse(DEFAULT_RANKING_LIMIT))
+                .filter(l -> l > 0 && l <= RankHeroesService.MAX_LIMIT)
+                .toEither(new ErrorDto("limit must be an integer between 1 and " + RankHeroesService.MAX_LIMIT, Option.of("limit")));
+        return IO.parZip(IO.fromEither(problem), IO.fromEither(limit))
+                .flatMap(query -> IO.<Errors<ErrorDto>, List<RankedHero>>fromMono(rankHeroesService.findBestHeroes(query._1, query._2)))
+                .foldMono(
+                        errors -> ServerResponse.badRequest().bodyValue(errors.toList()),
+                        heroes -> ServerResponse.ok().bodyValue(heroes)
+                );
+    }
+
+    public Mono<ServerResponse> watchHeroes(ServerRequest request) {
+        Either<ErrorDto, Problem> problem = Try.of(() -> Problem.valueOf(request.queryParam("problem").orElseThrow()))
+                .toEither(new ErrorDto("A valid problem is required", Option.of("problem")));
+        Either<ErrorDto, Boolean> availableOnly = Try.of(() -> request.queryParam("availableOnly").orElse("true"))
+                .filter(a -> a.equals("true") || a.equals("false"))
+                .map(Boolean::parseBoolean)
+                .toEither(new ErrorDto("availableOnly must be a boolean", Option.of("availableOnly")));
+        Either<ErrorDto, Integer> minMatchingAbilities = Try.of(() -> request.queryParam("minMatchingAbilities").map(Integer::valueOf).orElse(1))
+                .filter(m -> m > 0)
+                .toEither(new ErrorDto("minMatchingAbilities must be a positive integer", Option.of("minMatchingAbilities")));
+        return IO.parZip(IO.fromEither(problem), IO.fromEither(availableOnly), IO.fromEither(minMatchingAbilities), AssignmentQuery::new)
+                .flatMap(this::checkMatchingAbilities)
+                .foldMono(
+                        errors -> ServerResponse.badRequest().bodyValue(errors.toList()),
+                        query -> ServerResponse.ok().contentType(TEXT_EVENT_STREAM).body(fromServerSentEvents(assignmentEvents(query)))
+                );
+    }
+
+    // Each value of minMatchingAbilities is a standing query of its own, they are bounded by the useful abilities
+    private IO<Errors<ErrorDto>, AssignmentQuery> checkMatchingAbilities(AssignmentQuery query) {
+        int max = standingAssignmentsService.maxMatchingAbilities(query.problem());
+        if (query.minMatchingAbilities() > max) {
+            return IO.error(Errors.of(new ErrorDto("minMatchingAbilities must be at most " + max + " for " + query.problem(), Option.of("minMatchingAbilities"))));
+        }
+        return IO.succeed(query);
+    }
+
+    // The heartbeat comments keep idle connections from being closed by proxies
+    private Flux<ServerSentEvent<AssignmentDelta>> assignmentEvents(AssignmentQuery query) {
+        Flux<ServerSentEvent<AssignmentDelta>> deltas = standingAssignmentsService.watch(query)
+                .map(delta -> ServerSentEvent.builder(delta).event(delta.type().name()).build());
+        Flux<ServerSentEvent<AssignmentDelta>> heartbeats = Flux.interval(watchHeartbeat)
+                .map(__ -> ServerSentEvent.<AssignmentDelta>builder().comment("heartbeat").build());
+        return Flux.merge(deltas, heartbeats);
+    }
+
+    // A failure (exhausted retries, pool timeout...) is the error of this command only, the other results still go out
+    Mono<BulkHelpResult> findHelpResult(AskForHelp command) {
+        return findHelpService.findHelp(command)
+                .fold(
+                        helpErrors -> BulkHelpResult.builder().command(command).errors(helpErrors.dtoErrors()).build(),
+                        ok -> BulkHelpResult.builder().command(command).result(ok).build()
+                )
+                .onErrorResume(e -> {
+                    LOGGER.error("Help request {} failed", command, e);
+                    return Mono.just(BulkHelpResult.builder()
+                            .command(command)
+                            .errors(List.of(new ErrorDto("The help request failed, retry later", Option.none())))
+                            .build());
+                });
+    }
 }
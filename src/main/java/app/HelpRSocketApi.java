@@ -0,0 +1,46 @@
+package app;
+
+import app.command.AskForHelp;
+import io.vavr.collection.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The help api over RSocket. Errors are part of the payload (BulkHelpResult.errors), including the failure of a single
+ * command, so a stream goes on after it.
+ * <p>
+ * On the streams, the requests of the client (request-n) drive the work: at most bulkConcurrency commands are
+ * in progress and no more results are produced than requested, plus those in progress.
+ */
+@Controller
+public class HelpRSocketApi {
+
+    private final HelpApi helpApi;
+    private final int bulkConcurrency;
+
+    public HelpRSocketApi(HelpApi helpApi, @Value("${helps.bulk.concurrency}") int bulkConcurrency) {
+        this.helpApi = helpApi;
+        this.bulkConcurrency = bulkConcurrency;
+    }
+
+    // request-response
+    @MessageMapping("helps.command")
+    public Mono<BulkHelpResult> findHelp(AskForHelp command) {
+        return helpApi.findHelpResult(command);
+    }
+
+    // request-stream
+    @MessageMapping("helps.bulk")
+    public Flux<BulkHelpResult> findHelps(List<AskForHelp> commands) {
+        return Flux.fromIterable(commands).flatMapSequential(helpApi::findHelpResult, bulkConcurrency, 1);
+    }
+
+    // request-channel
+    @MessageMapping("helps.channel")
+    public Flux<BulkHelpResult> findHelpsChannel(Flux<AskForHelp> commands) {
+        return commands.flatMapSequential(helpApi::findHelpResult, bulkConcurrency, 1);
+    }
+}
@@ -0,0 +1,89 @@
+package app;
+
+import app.command.AskForHelp;
+import app.entities.Problem;
+import app.error.AppErrors;
+import app.error.TooManyRequestsError;
+import io.AdaptiveLimiter;
+import io.AdaptiveLimiter.Permit;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sheds the findHelp requests over the limit of the adaptive limiter with a 429, before any work is done.
+ * <p>
+ * When priorities are given (highest first), the command is decoded first (the handler gets it from the
+ * {@link HelpApi#COMMAND} attribute) and a problem at rank i may only use (1 - i * priorityStep) of the limit:
+ * the problems at the end of the list, and the ones not in it, are shed first. The body is then read before the
+ * request is shed, so there are no priorities by default.
+ * The latency is sampled when the response is ready, a 5xx response or a cancellation (the client gave up, usually
+ * on a timeout) counts as a dropped call.
+ */
+public class LoadSheddingFilter implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveLimiter limiter;
+    private final List<Problem> priorities;
+    private final double priorityStep;
+
+    public LoadSheddingFilter(AdaptiveLimiter limiter, List<Problem> priorities, double priorityStep) {
+        this.limiter = limiter;
+        this.priorities = priorities;
+        this.priorityStep = priorityStep;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        if (priorities.isEmpty()) {
+            return admit(request, next, 1);
+        }
+        return request.bodyToMono(AskForHelp.class)
+                .map(Option::some)
+                .defaultIfEmpty(Option.none())
+                .flatMap(command -> {
+                    command.forEach(c -> request.attributes().put(HelpApi.COMMAND, c));
+                    return admit(request, next, command.map(c -> share(c.problem)).getOrElse(this::lowestShare));
+                });
+    }
+
+    private Mono<ServerResponse> admit(ServerRequest request, HandlerFunction<ServerResponse> next, double share) {
+        Option<Permit> permit = limiter.tryAcquire(share);
+        if (permit.isEmpty()) {
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .bodyValue(new AppErrors<>(List.of(new TooManyRequestsError("Too many requests in progress, retry later"))).dtoErrors());
+        }
+        Permit p = permit.get();
+        return Mono.defer(() -> next.handle(request))
+                .doOnSuccess(response -> {
+                    if (response != null && response.statusCode().is5xxServerError()) {
+                        p.dropped();
+                    } else {
+                        p.success();
+                    }
+                })
+                .doOnError(e -> p.dropped())
+                .doOnCancel(p::dropped);
+    }
+
+    private double share(Problem problem) {
+        int rank = priorities.indexOf(problem);
+        return rank < 0 ? lowestShare() : shareAt(rank);
+    }
+
+    private double lowestShare() {
+        return shareAt(priorities.size());
+    }
+
+    private double shareAt(int rank) {
+        return Math.max(priorityStep, 1 - rank * priorityStep);
+    }
+}
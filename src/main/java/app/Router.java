@@ -1,13 +1,24 @@
 package app;
 
+import app.entities.Problem;
+import io.AdaptiveLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.collection.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import java.time.Duration;
+
+import static app.CodecsConfiguration.APPLICATION_SMILE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import static org.springframework.web.reactive.function.server.RequestPredicates.*;
 import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
@@ -17,8 +28,26 @@ public class Router {
     private final static Logger LOGGER = LoggerFactory.getLogger(Router.class);
 
     @Bean
-    RouterFunction<ServerResponse> monoRouterFunction(HelpApi helpApi) {
+    RouterFunction<ServerResponse> monoRouterFunction(HelpApi helpApi, LoadSheddingFilter loadSheddingFilter, @Value("${helps.limiter.enabled}") boolean limiterEnabled) {
         LOGGER.info("Inititalizing routes !");
-        return route(POST("/api/helps/_command").and(accept(APPLICATION_JSON)), helpApi::findHelp);
+        RouterFunction<ServerResponse> findHelp = route(POST("/api/helps/_command").and(accept(APPLICATION_JSON, APPLICATION_CBOR, APPLICATION_SMILE)), helpApi::findHelp);
+        return (limiterEnabled ? findHelp.filter(loadSheddingFilter) : findHelp)
+                .andRoute(POST("/api/helps/_bulk").and(contentType(APPLICATION_JSON, APPLICATION_NDJSON)), helpApi::findHelps)
+                .andRoute(GET("/api/heroes/_best").and(accept(APPLICATION_JSON)), helpApi::findBestHeroes)
+                .andRoute(GET("/api/heroes/_watch").and(accept(TEXT_EVENT_STREAM)), helpApi::watchHeroes);
+    }
+
+    @Bean
+    LoadSheddingFilter loadSheddingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${helps.limiter.initial-limit}") int initialLimit,
+            @Value("${helps.limiter.min-limit}") int minLimit,
+            @Value("${helps.limiter.max-limit}") int maxLimit,
+            @Value("${helps.limiter.latency-threshold}") Duration latencyThreshold,
+            @Value("${helps.limiter.backoff-ratio}") double backoffRatio,
+            @Value("${helps.limiter.priorities:}") Problem[] priorities,
+            @Value("${helps.limiter.priority-step}") double priorityStep) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("find-help", initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, meterRegistry);
+        return new LoadSheddingFilter(limiter, List.of(priorities), priorityStep);
     }
 }
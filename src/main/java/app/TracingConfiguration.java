@@ -0,0 +1,70 @@
+package app;
+
+import io.InMemorySpanExporter;
+import io.SpanExporter;
+import io.TraceContext;
+import io.TraceContext.RemoteParent;
+import io.Tracing;
+import io.vavr.control.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.WebFilter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces a sample of the http requests (tracing.sample-rate). A request coming with a W3C traceparent header continues
+ * the caller's trace and follows its decision: it is traced if and only if the sampled flag is set. The trace id is sent back in the traceparent response header, the spans go to the exporter chosen by tracing.exporter:
+ * <ul>
+ *     <li>none</li>
+ *     <li>log: the spans lasting at least tracing.log.min-duration are logged</li>
+ *     <li>in-memory: the last tracing.in-memory.capacity spans are kept, see {@link InMemorySpanExporter}</li>
+ * </ul>
+ */
+@Configuration
+public class TracingConfiguration {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TracingConfiguration.class);
+
+    private static final String TRACEPARENT = "traceparent";
+
+    @Bean
+    SpanExporter spanExporter(
+            @Value("${tracing.exporter}") String exporter,
+            @Value("${tracing.log.min-duration}") Duration minDuration,
+            @Value("${tracing.in-memory.capacity}") int capacity) {
+        return switch (exporter) {
+            case "none" -> SpanExporter.NONE;
+            case "log" -> span -> {
+                if (span.duration().compareTo(minDuration) >= 0) {
+                    LOGGER.info("{}", span);
+                }
+            };
+            case "in-memory" -> new InMemorySpanExporter(capacity);
+            default -> throw new IllegalArgumentException("Unknown span exporter " + exporter);
+        };
+    }
+
+    @Bean
+    WebFilter tracingWebFilter(SpanExporter spanExporter, @Value("${tracing.sample-rate}") double sampleRate) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            Option<RemoteParent> remoteParent = Option.of(request.getHeaders().getFirst(TRACEPARENT))
+                    .flatMap(traceparent -> TraceContext.fromTraceparent(traceparent, spanExporter));
+            boolean sampled = remoteParent.map(RemoteParent::sampled)
+                    .getOrElse(() -> ThreadLocalRandom.current().nextDouble() < sampleRate);
+            if (spanExporter == SpanExporter.NONE || !sampled) {
+                return chain.filter(exchange);
+            }
+            Option<TraceContext> parent = remoteParent.map(RemoteParent::span);
+            TraceContext span = parent.map(TraceContext::child).getOrElse(() -> TraceContext.newTrace(spanExporter));
+            exchange.getResponse().getHeaders().set(TRACEPARENT, span.traceparent());
+            return Tracing.trace(request.getMethodValue() + " " + request.getPath().value(), span, parent.map(TraceContext::spanId), chain.filter(exchange));
+        };
+    }
+}
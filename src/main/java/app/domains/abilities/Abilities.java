@@ -3,10 +3,12 @@ package app.domains.abilities;
 import app.domains.abilities.AbilitiesError.AbilityUnmatch;
 import io.IO;
 import app.domains.superheroes.Superhero;
+import app.entities.EnumMask;
 import app.entities.Problem;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -19,17 +21,26 @@ public class Abilities {
             Problem.SuperVilain, List.of(Ability.LazerEyes, Ability.IronBody, Ability.ElasticBody)
     );
 
+    // indexed by Problem ordinal
+    private final long[] requiredAbilities = EnumMask.byOrdinal(Problem.values(), IA);
+
     public IO<AbilityUnmatch, List<Ability>> checkAbilities(Superhero superhero, Problem problem) {
 
-        List<Ability> requiredAbilities = IA.getOrElse(problem, List.empty());
-        List<Ability> superheroAbilities = superhero.abilities;
+        long required = requiredAbilities[problem.ordinal()];
 
-        List<Ability> usableAbilities = superheroAbilities.filter(requiredAbilities::contains);
-        if (usableAbilities.isEmpty()) {
+        if ((superhero.abilitiesMask() & required) == 0) {
             return IO.error(new AbilityUnmatch());
         } else {
-            return IO.succeed(usableAbilities);
+            return IO.succeed(superhero.abilities.filter(ability -> EnumMask.contains(required, ability)));
         }
     }
 
+    public Set<Ability> abilitiesRequiredFor(Problem problem) {
+        return IA.getOrElse(problem, List.empty()).toSet();
+    }
+
+    public int countMatchingAbilities(Superhero superhero, Problem problem) {
+        return Long.bitCount(superhero.abilitiesMask() & requiredAbilities[problem.ordinal()]);
+    }
+
 }
@@ -1,25 +1,71 @@
 package app.domains.superheroes;
 
+import io.Bulkhead;
+import io.CircuitBreaker;
 import io.IO;
+import io.IOMetrics;
+import app.domains.superheroes.SuperheroError.SuperheroBackendOverloaded;
+import app.domains.superheroes.SuperheroError.SuperheroBackendUnavailable;
+import app.domains.superheroes.SuperheroError.SuperheroLookupTimeout;
 import app.domains.superheroes.SuperheroError.SuperheroUnavailable;
 import app.domains.superheroes.SuperheroError.SuperheroUnknown;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vavr.control.Option;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
 
 @Component
 public class SuperHeroes {
 
     private final SuperheroRepository superheroRepository;
+    private final IOMetrics repositoryMetrics;
+    private final Duration timeout;
+    private final Retry retry;
+    private final Duration minHedgeDelay;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
 
-    public SuperHeroes(SuperheroRepository superheroRepository) {
+    public SuperHeroes(SuperheroRepository superheroRepository,
+                       CircuitBreaker superheroRepositoryCircuitBreaker,
+                       Bulkhead superheroRepositoryBulkhead,
+                       MeterRegistry meterRegistry,
+                       @Value("${superheroes.lookup.timeout}") Duration timeout,
+                       @Value("${superheroes.lookup.max-retries}") long maxRetries,
+                       @Value("${superheroes.lookup.retry-backoff}") Duration retryBackoff,
+                       @Value("${superheroes.lookup.min-hedge-delay}") Duration minHedgeDelay) {
         this.superheroRepository = superheroRepository;
+        this.repositoryMetrics = IOMetrics.of(meterRegistry, "hero-repository");
+        this.timeout = timeout;
+        this.retry = Retry.backoff(maxRetries, retryBackoff).jitter(0.5);
+        this.minHedgeDelay = minHedgeDelay;
+        this.circuitBreaker = superheroRepositoryCircuitBreaker;
+        this.bulkhead = superheroRepositoryBulkhead;
     }
 
     public IO<SuperheroError, Superhero> lookForSuperhero(String name) {
-        return IO.<SuperheroError, Option<Superhero>>fromMono(superheroRepository.findByName(name))
+        // A second lookup is fired when the first one is slower than the usual p95 of the repository (the lookups
+        // cancelled by a hedge or the timeout included),
+        // a failing lookup is retried and the whole is bounded by the timeout.
+        // Lookups fail fast when too many are in progress or when the repository keeps failing.
+        IO<SuperheroError, Option<Superhero>> lookup = IO.<SuperheroError, Option<Superhero>>fromMono(Mono.defer(() -> superheroRepository.findByName(name)))
+                .metrics(repositoryMetrics)
+                .traced("hero-repository")
+                .hedge(this::hedgeDelay)
+                .retry(retry)
+                .timeout(timeout, () -> new SuperheroLookupTimeout(name));
+        IO<SuperheroError, Option<Superhero>> limited = bulkhead.protect(lookup, () -> new SuperheroBackendOverloaded(name));
+        return circuitBreaker.protect(limited, error -> error instanceof SuperheroLookupTimeout, () -> new SuperheroBackendUnavailable(name))
                 .flatMap(mayBeSuperHero ->
                         IO.fromOption(mayBeSuperHero, () -> new SuperheroUnknown(name))
                 )
                 .filter(hero -> hero.isAvailable, () -> new SuperheroUnavailable(name));
     }
+
+    private Duration hedgeDelay() {
+        return repositoryMetrics.p95().filter(p95 -> p95.compareTo(minHedgeDelay) > 0).getOrElse(minHedgeDelay);
+    }
 }
@@ -2,13 +2,16 @@ package app.domains.superheroes;
 
 import app.domains.abilities.Ability;
 import app.domains.weakness.Weakness;
+import app.entities.EnumMask;
 import io.vavr.collection.List;
 import lombok.*;
 
-@Builder(toBuilder = true)
+/**
+ * The abilities and weaknesses are also kept as bitmasks (see {@link EnumMask}), computed once when the superhero is
+ * built, for the checks.
+ */
 @ToString
 @EqualsAndHashCode
-@AllArgsConstructor
 public class Superhero {
 
     public final String id;
@@ -18,11 +21,33 @@ public class Superhero {
     public final List<Ability> abilities;
     public final List<Weakness> weaknesses;
 
-    public Superhero(String id, String name) {
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final long abilitiesMask;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final long weaknessesMask;
+
+    @Builder(toBuilder = true)
+    public Superhero(String id, String name, Boolean isAvailable, List<Ability> abilities, List<Weakness> weaknesses) {
         this.id = id;
         this.name = name;
-        this.isAvailable = true;
-        this.abilities = List.empty();
-        this.weaknesses = List.empty();
+        this.isAvailable = isAvailable;
+        this.abilities = abilities;
+        this.weaknesses = weaknesses;
+        this.abilitiesMask = abilities == null ? 0L : EnumMask.of(abilities);
+        this.weaknessesMask = weaknesses == null ? 0L : EnumMask.of(weaknesses);
+    }
+
+    public Superhero(String id, String name) {
+        this(id, name, true, List.empty(), List.empty());
+    }
+
+    public long abilitiesMask() {
+        return abilitiesMask;
+    }
+
+    public long weaknessesMask() {
+        return weaknessesMask;
     }
 }
@@ -0,0 +1,37 @@
+package app.domains.superheroes;
+
+import io.vavr.control.Option;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A write on the roster: previous is empty for a new superhero, current is empty for a deletion.
+ */
+public record SuperheroChange(String name, Option<Superhero> previous, Option<Superhero> current) {
+
+    public boolean isCreation() {
+        return previous.isEmpty() && current.isDefined();
+    }
+
+    public boolean isDeletion() {
+        return previous.isDefined() && current.isEmpty();
+    }
+
+    public boolean availabilityChanged() {
+        return changed(hero -> hero.isAvailable);
+    }
+
+    public boolean abilitiesChanged() {
+        return changed(hero -> hero.abilities);
+    }
+
+    public boolean weaknessesChanged() {
+        return changed(hero -> hero.weaknesses);
+    }
+
+    // A creation or a deletion changes everything
+    private boolean changed(Function<Superhero, Object> property) {
+        return !Objects.equals(previous.map(property), current.map(property));
+    }
+}
@@ -1,6 +1,7 @@
 package app.domains.superheroes;
 
 import app.error.AppError;
+import app.error.UnavailableError;
 import lombok.Value;
 
 import java.text.MessageFormat;
@@ -18,4 +19,22 @@ public sealed interface SuperheroError extends AppError {
             this(MessageFormat.format("{0} is not available at the moment", name), name);
         }
     }
+
+    record SuperheroLookupTimeout(String message, String name) implements SuperheroError, UnavailableError {
+        public SuperheroLookupTimeout(String name) {
+            this(MessageFormat.format("looking for {0} took too long", name), name);
+        }
+    }
+
+    record SuperheroBackendUnavailable(String message, String name) implements SuperheroError, UnavailableError {
+        public SuperheroBackendUnavailable(String name) {
+            this(MessageFormat.format("can''t look for {0}, the superheroes backend is failing", name), name);
+        }
+    }
+
+    record SuperheroBackendOverloaded(String message, String name) implements SuperheroError, UnavailableError {
+        public SuperheroBackendOverloaded(String name) {
+            this(MessageFormat.format("can''t look for {0}, too many lookups in progress", name), name);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package app.domains.superheroes;
 
 import app.error.AppErrors;
+import io.Errors;
 import io.vavr.collection.List;
 
 public class SuperheroErrors extends AppErrors<SuperheroError> {
@@ -8,7 +9,11 @@ public class SuperheroErrors extends AppErrors<SuperheroError> {
         super(errors);
     }
 
+    public SuperheroErrors(Errors<SuperheroError> errors) {
+        super(errors);
+    }
+
     public static SuperheroErrors of(SuperheroError e) {
-        return new SuperheroErrors(List.of(e));
+        return new SuperheroErrors(Errors.of(e));
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package app.domains.superheroes;
+
+import io.Bulkhead;
+import io.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class SuperheroLookupConfiguration {
+
+    @Bean
+    CircuitBreaker superheroRepositoryCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${superheroes.circuit-breaker.sliding-window-size}") int slidingWindowSize,
+            @Value("${superheroes.circuit-breaker.minimum-calls}") int minimumCalls,
+            @Value("${superheroes.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+            @Value("${superheroes.circuit-breaker.open-duration}") Duration openDuration,
+            @Value("${superheroes.circuit-breaker.half-open-calls}") int halfOpenCalls) {
+        return new CircuitBreaker("superhero-repository", slidingWindowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, meterRegistry);
+    }
+
+    @Bean
+    Bulkhead superheroRepositoryBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${superheroes.bulkhead.max-concurrent-calls}") int maxConcurrentCalls) {
+        return new Bulkhead("superhero-repository", maxConcurrentCalls, meterRegistry);
+    }
+}
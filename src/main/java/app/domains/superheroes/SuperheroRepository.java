@@ -1,10 +1,59 @@
 package app.domains.superheroes;
 
+import app.domains.abilities.Ability;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Superheroes are identified by their name, case insensitive.
+ */
 public interface SuperheroRepository {
 
+    /**
+     * The key of a name, the same whatever its case: the repositories and their users compare names through it.
+     */
+    static String key(String name) {
+        return name.toLowerCase();
+    }
+
     Mono<Option<Superhero>> findByName(String name);
 
+    /**
+     * Looks for several superheroes in one call. The result is keyed by the requested names, unknown names are absent.
+     */
+    Mono<Map<String, Superhero>> findAllByNames(Set<String> names);
+
+    /**
+     * Streams the whole roster.
+     */
+    Flux<Superhero> findAll();
+
+    /**
+     * Streams the available superheroes having at least one of the abilities.
+     * Scans the whole roster unless the implementation has a better way.
+     */
+    default Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return findAll().filter(hero -> hero.isAvailable && hero.abilities.exists(abilities::contains));
+    }
+
+    /**
+     * Inserts or replaces the superhero with the same name.
+     */
+    Mono<Superhero> save(Superhero superhero);
+
+    /**
+     * Removes the superhero, returns it if it existed.
+     */
+    Mono<Option<Superhero>> delete(String name);
+
+    /**
+     * Hot stream of the saves and deletions made through this repository, in the order they were applied.
+     * Writes made by another process on the same storage are not seen. A subscriber falling too far behind receives
+     * an error rather than silently missing changes.
+     */
+    Flux<SuperheroChange> changes();
+
 }
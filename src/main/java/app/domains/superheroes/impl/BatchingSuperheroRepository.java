@@ -0,0 +1,160 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the findByName calls arriving within a window (or until maxBatchSize names are pending) into a single
+ * findAllByNames call on the delegate. Concurrent lookups for the same name share the same pending result.
+ * <p>
+ * At most maxConcurrentBatches batches are loading at once, the next ones wait for a free slot. If the batching loop
+ * ever fails, the pending lookups are failed and a new loop is started. dispose stops the loop and fails the
+ * pending lookups.
+ */
+public class BatchingSuperheroRepository implements SuperheroRepository, Disposable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(BatchingSuperheroRepository.class);
+
+    private final SuperheroRepository delegate;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final int maxConcurrentBatches;
+    private final ConcurrentMap<String, Sinks.One<Option<Superhero>>> inFlight = new ConcurrentHashMap<>();
+    // Replaced with the loop when it fails
+    private volatile Sinks.Many<String> pendingNames;
+    private volatile Disposable loop;
+    private volatile boolean disposed;
+
+    public BatchingSuperheroRepository(SuperheroRepository delegate, int maxBatchSize, Duration window, int maxConcurrentBatches) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+        start();
+    }
+
+    private synchronized void start() {
+        if (disposed) {
+            return;
+        }
+        Sinks.Many<String> names = Sinks.many().unicast().onBackpressureBuffer();
+        pendingNames = names;
+        loop = names.asFlux()
+                .bufferTimeout(maxBatchSize, window)
+                // bufferTimeout fails when a batch is due and nothing is requested (every slot busy with a slow
+                // backend): the batches wait here instead, they are bounded by the number of pending lookups
+                .onBackpressureBuffer()
+                .flatMap(this::loadBatch, maxConcurrentBatches)
+                .subscribe(null, this::restart);
+    }
+
+    private void restart(Throwable error) {
+        LOGGER.error("Batching loop failed, the pending lookups are failed and a new loop is started", error);
+        failInFlight(error);
+        start();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        disposed = true;
+        loop.dispose();
+        failInFlight(new IllegalStateException("The batching repository is disposed"));
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        return Mono.defer(() -> {
+            Sinks.One<Option<Superhero>> newSink = Sinks.one();
+            Sinks.One<Option<Superhero>> sink = inFlight.putIfAbsent(name, newSink);
+            if (sink == null) {
+                sink = newSink;
+                Sinks.EmitResult result;
+                do {
+                    // Several request threads may emit at once, the unicast sink only accepts serialized emissions
+                    result = pendingNames.tryEmitNext(name);
+                } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+                if (result.isFailure()) {
+                    // The loop failed or the repository is disposed, nobody would ever answer
+                    Sinks.EmitResult failure = result;
+                    complete(name, pending -> pending.tryEmitError(new IllegalStateException("Lookup of " + name + " not batched: " + failure)));
+                }
+            }
+            return sink.asMono();
+        });
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return delegate.findAvailableByAbilities(abilities);
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return delegate.save(superhero);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return delegate.delete(name);
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return delegate.changes();
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return delegate.findAllByNames(names);
+    }
+
+    private Mono<Map<String, Superhero>> loadBatch(java.util.List<String> names) {
+        List<String> batch = List.ofAll(names);
+        return Mono.defer(() -> delegate.findAllByNames(HashSet.ofAll(batch)))
+                .defaultIfEmpty(HashMap.empty())
+                .doOnNext(found -> batch.forEach(name -> complete(name, sink -> sink.tryEmitValue(found.get(name)))))
+                .doOnError(e -> batch.forEach(name -> complete(name, sink -> sink.tryEmitError(e))))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private void failInFlight(Throwable error) {
+        inFlight.keySet().forEach(name -> complete(name, sink -> sink.tryEmitError(error)));
+    }
+
+    private void complete(String name, Consumer<Sinks.One<Option<Superhero>>> emit) {
+        // Removed before being completed so that a lookup arriving after this batch goes into the next one
+        Sinks.One<Option<Superhero>> sink = inFlight.remove(name);
+        if (sink != null) {
+            emit.accept(sink);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vavr.Tuple;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the lookups of the delegate, unknown superheroes included (for a shorter time).
+ * The cache is bounded by size (W-TinyLFU eviction) and a cold name is loaded only once,
+ * concurrent lookups share the same pending load.
+ * <p>
+ * A write invalidates the name once it is done. A load overlapping a write may have read the previous value:
+ * it is answered to its callers but not kept. The cache statistics are exposed as the "superheroes" cache meters.
+ */
+public class CachingSuperheroRepository implements SuperheroRepository {
+
+    private final SuperheroRepository delegate;
+    private final AsyncCache<String, Option<Superhero>> cache;
+    // Incremented at the end of every write, a load seeing it change was concurrent with a write
+    private final AtomicLong writes = new AtomicLong();
+
+    public CachingSuperheroRepository(SuperheroRepository delegate, long maximumSize, Duration ttl, Duration negativeTtl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Option<Superhero>>() {
+                    @Override
+                    public long expireAfterCreate(String name, Option<Superhero> hero, long currentTime) {
+                        return hero.isDefined() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String name, Option<Superhero> hero, long currentTime, long currentDuration) {
+                        return expireAfterCreate(name, hero, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String name, Option<Superhero> hero, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "superheroes");
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        // thenApply gives each subscriber its own future, a cancelled subscriber must not cancel the shared load
+        return Mono.fromFuture(() -> cache
+                .get(key(name), (key, executor) -> load(key, executor))
+                .thenApply(hero -> hero)
+        );
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return Mono.fromFuture(() -> cache
+                .getAll(names.map(CachingSuperheroRepository::key), (missing, executor) -> {
+                    Set<String> missingKeys = HashSet.ofAll(missing);
+                    long generation = writes.get();
+                    CompletableFuture<java.util.Map<String, Option<Superhero>>> loaded = delegate.findAllByNames(missingKeys)
+                            .map(found -> missingKeys.toJavaMap(key -> Tuple.of(key, found.get(key))))
+                            .toFuture();
+                    loaded.thenRunAsync(() -> {
+                        if (writes.get() != generation) {
+                            cache.synchronous().invalidateAll(missingKeys);
+                        }
+                    }, executor);
+                    return loaded;
+                })
+                .thenApply(heroes -> heroes)
+        ).map(heroes -> names
+                .flatMap(name -> Option.of(heroes.get(key(name))).flatMap(hero -> hero).map(hero -> Tuple.of(name, hero)))
+                .toMap(Function.identity())
+        );
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return delegate.findAvailableByAbilities(abilities);
+    }
+
+    // Removed from the cache if a write ended while it was loading. Checked asynchronously: the load may complete
+    // within the cache mapping function, where the entry can't be modified.
+    private CompletableFuture<Option<Superhero>> load(String key, Executor executor) {
+        long generation = writes.get();
+        CompletableFuture<Option<Superhero>> loaded = delegate.findByName(key).toFuture();
+        loaded.thenRunAsync(() -> {
+            if (writes.get() != generation) {
+                cache.asMap().remove(key, loaded);
+            }
+        }, executor);
+        return loaded;
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return written(delegate.save(superhero), superhero.name);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return written(delegate.delete(name), name);
+    }
+
+    // A failed or cancelled write may still have been applied, the name is invalidated whatever the outcome
+    private <T> Mono<T> written(Mono<T> write, String name) {
+        Runnable invalidate = () -> {
+            writes.incrementAndGet();
+            cache.synchronous().invalidate(key(name));
+        };
+        return write.doOnTerminate(invalidate).doOnCancel(invalidate);
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return delegate.changes();
+    }
+
+    private static String key(String name) {
+        return SuperheroRepository.key(name);
+    }
+}
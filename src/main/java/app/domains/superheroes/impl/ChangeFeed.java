@@ -0,0 +1,31 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Hot stream of the changes made through a repository, from the time of subscription: earlier changes are not replayed.
+ * <p>
+ * Writers never wait for the subscribers. Each subscriber has its own buffer of up to BUFFER_SIZE changes,
+ * a subscriber falling further behind receives an overflow error instead of silently missing changes.
+ * The changes are delivered in the order they are published: a repository publishes them in the order it applied them.
+ */
+final class ChangeFeed {
+
+    static final int BUFFER_SIZE = 8192;
+
+    // directBestEffort would drop the changes for a subscriber without demand, flux() puts a buffer in front of each one
+    private final Sinks.Many<SuperheroChange> changes = Sinks.many().multicast().directBestEffort();
+
+    void publish(String name, Option<Superhero> previous, Option<Superhero> current) {
+        // Writers the repository doesn't serialize may publish at once, the sink only accepts serialized emissions
+        changes.emitNext(new SuperheroChange(name, previous, current), (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+
+    Flux<SuperheroChange> flux() {
+        return changes.asFlux().onBackpressureBuffer(BUFFER_SIZE);
+    }
+}
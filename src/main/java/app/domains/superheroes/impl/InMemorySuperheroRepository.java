@@ -2,37 +2,156 @@ package app.domains.superheroes.impl;
 
 import app.domains.abilities.Ability;
 import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
 import app.domains.superheroes.SuperheroRepository;
 import app.domains.weakness.Weakness;
+import io.vavr.Tuple;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import io.vavr.collection.Set;
 import io.vavr.control.Option;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
 @Component
+@Qualifier("backend")
+@Profile("!mmap & !r2dbc")
 public class InMemorySuperheroRepository implements SuperheroRepository {
 
-    private final Map<String, Superhero> superheroMap = HashMap.of(
-            "luffy", Superhero.builder()
+    // Copy on write: every write swaps an immutable snapshot (persistent maps share most of their structure),
+    // readers work on the snapshot they got and never wait for a writer. Writers take writeLock, so that the
+    // changes are published in the order they were applied.
+    private final AtomicReference<Index> index = new AtomicReference<>(Index.EMPTY
+            .put(Superhero.builder()
                     .id("luffy")
                     .name("luffy")
                     .isAvailable(true)
                     .weaknesses(List.of(Weakness.Dumb, Weakness.Water))
                     .abilities(List.of(Ability.ElasticBody, Ability.Strength, Ability.DoNotGiveUp))
-                    .build(),
-            "superman", Superhero.builder()
+                    .build())
+            .put(Superhero.builder()
                     .id("superman")
                     .name("superman")
                     .isAvailable(false)
                     .weaknesses(List.of(Weakness.Cryptonic))
                     .abilities(List.of(Ability.Strength, Ability.LazerEyes, Ability.Fly))
-                    .build()
+                    .build())
     );
+    private final ChangeFeed changes = new ChangeFeed();
+    private final Object writeLock = new Object();
 
     @Override
     public Mono<Option<Superhero>> findByName(String name) {
-        return Mono.just(superheroMap.get(name.toLowerCase()));
+        return Mono.fromSupplier(() -> index.get().byName.get(key(name)));
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return Mono.fromSupplier(() -> {
+            Map<String, Superhero> superheroMap = index.get().byName;
+            return names
+                    .flatMap(name -> superheroMap.get(key(name)).map(hero -> Tuple.of(name, hero)))
+                    .toMap(Function.identity());
+        });
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(index.get().byName.values()));
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return Flux.defer(() -> {
+            Index snapshot = index.get();
+            Set<String> names = abilities.flatMap(ability -> snapshot.byAbility.getOrElse(ability, HashSet.empty()));
+            return Flux.fromIterable(names.filter(snapshot.available::contains).flatMap(snapshot.byName::get));
+        });
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return Mono.fromSupplier(() -> {
+            synchronized (writeLock) {
+                Option<Superhero> previous = index.getAndUpdate(current -> current.put(superhero)).byName.get(key(superhero.name));
+                changes.publish(superhero.name, previous, Option.some(superhero));
+                return superhero;
+            }
+        });
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return Mono.fromSupplier(() -> {
+            synchronized (writeLock) {
+                Option<Superhero> previous = index.getAndUpdate(current -> current.remove(key(name))).byName.get(key(name));
+                if (previous.isDefined()) {
+                    changes.publish(name, previous, Option.none());
+                }
+                return previous;
+            }
+        });
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return changes.flux();
+    }
+
+    private static String key(String name) {
+        return SuperheroRepository.key(name);
+    }
+
+    private record Index(
+            Map<String, Superhero> byName,
+            Map<Ability, Set<String>> byAbility,
+            Set<String> available) {
+
+        static final Index EMPTY = new Index(HashMap.empty(), HashMap.empty(), HashSet.empty());
+
+        Index put(Superhero superhero) {
+            String key = key(superhero.name);
+            Index cleaned = remove(key);
+            return new Index(
+                    cleaned.byName.put(key, superhero),
+                    add(cleaned.byAbility, superhero.abilities, key),
+                    superhero.isAvailable ? cleaned.available.add(key) : cleaned.available
+            );
+        }
+
+        Index remove(String key) {
+            return byName.get(key)
+                    .map(previous -> new Index(
+                            byName.remove(key),
+                            remove(byAbility, previous.abilities, key),
+                            available.remove(key)
+                    ))
+                    .getOrElse(this);
+        }
+
+        private static <T> Map<T, Set<String>> add(Map<T, Set<String>> index, Iterable<T> values, String key) {
+            Map<T, Set<String>> result = index;
+            for (T value : values) {
+                result = result.put(value, result.getOrElse(value, HashSet.empty()).add(key));
+            }
+            return result;
+        }
+
+        private static <T> Map<T, Set<String>> remove(Map<T, Set<String>> index, Iterable<T> values, String key) {
+            Map<T, Set<String>> result = index;
+            for (T value : values) {
+                Set<String> keys = result.getOrElse(value, HashSet.empty()).remove(key);
+                result = keys.isEmpty() ? result.remove(value) : result.put(value, keys);
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,542 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import app.domains.weakness.Weakness;
+import app.entities.EnumMask;
+import io.vavr.Tuple;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Durable roster stored in two memory mapped files.
+ * <p>
+ * superheroes.dat is an append only log of records:
+ * <pre>
+ * int length | byte type (PUT/DELETE) | byte available | long abilities mask | long weaknesses mask
+ * | short + utf8 key (lower cased name) | short + utf8 id | short + utf8 name
+ * </pre>
+ * The string lengths are unsigned shorts: a name or an id over 65535 utf8 bytes is rejected.
+ * A write returns once its record and the new end of the log are forced to the disk.
+ * Abilities and weaknesses are stored as bitmasks of their ordinals: reordering the enums breaks existing files,
+ * and a hero's abilities come back in declaration order.
+ * <p>
+ * superheroes.idx is an open addressing hash table of (key hash, offset of the latest record for the key).
+ * Opening the repository only maps both files, nothing is read on the heap. A lookup compares the key bytes in place
+ * and only decodes the matching record. Obsolete records are dropped by compaction, which rewrites both files:
+ * the live records are copied without holding the lock, only the records written meanwhile and the switch to the new
+ * files are done under the write lock.
+ */
+public class MappedFileSuperheroRepository implements SuperheroRepository, AutoCloseable {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(MappedFileSuperheroRepository.class);
+
+    private static final int DATA_MAGIC = 0x53484430;
+    private static final int INDEX_MAGIC = 0x53484930;
+    private static final int FORMAT_VERSION = 1;
+
+    // data header: magic, version, end of the log
+    private static final int DATA_HEADER_SIZE = 16;
+    private static final int DATA_END = 8;
+    private static final int INITIAL_DATA_SIZE = 1 << 20;
+
+    // index header: magic, capacity, used slots, padding, end of the log it was built from, live bytes of the log
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int INDEX_CAPACITY = 4;
+    private static final int INDEX_SIZE = 8;
+    private static final int INDEX_DATA_END = 16;
+    private static final int INDEX_LIVE_BYTES = 24;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final int SLOT_SIZE = 16;
+
+    // record layout
+    private static final int RECORD_TYPE = 4;
+    private static final int RECORD_AVAILABLE = 5;
+    private static final int RECORD_ABILITIES = 6;
+    private static final int RECORD_WEAKNESSES = 14;
+    private static final int RECORD_KEY = 22;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final List<Ability> ABILITIES = List.of(Ability.values());
+    private static final List<Weakness> WEAKNESSES = List.of(Weakness.values());
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Disposable compaction;
+    private final ChangeFeed changes = new ChangeFeed();
+
+    private FileChannel dataChannel;
+    private MappedByteBuffer data;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+
+    public MappedFileSuperheroRepository(Path directory, Duration compactionInterval) {
+        this.dataPath = directory.resolve("superheroes.dat");
+        this.indexPath = directory.resolve("superheroes.idx");
+        try {
+            Files.createDirectories(directory);
+            openData();
+            openIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.compaction = Flux.interval(compactionInterval, compactionInterval, Schedulers.boundedElastic())
+                .subscribe(__ -> compactIfWorthIt());
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        return Mono.fromCallable(() -> read(() -> lookup(name)));
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return Mono.fromCallable(() -> read(() -> names
+                .flatMap(name -> lookup(name).map(hero -> Tuple.of(name, hero)))
+                .toMap(Function.identity())
+        ));
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        // Records are never modified once written and a compaction writes new files, so the snapshot
+        // of the offsets stays readable from the snapshot of the mapping without holding the lock.
+        return Flux.defer(() -> {
+            Snapshot snapshot = read(this::liveRecords);
+            return Flux.range(0, snapshot.offsets.length)
+                    .map(i -> decode(snapshot.data, snapshot.offsets[i]));
+        });
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return Mono.fromCallable(() -> {
+            byte[] key = checkLength("name", key(superhero.name));
+            byte[] id = checkLength("id", utf8(superhero.id));
+            byte[] name = checkLength("name", utf8(superhero.name));
+            return write(() -> {
+                Option<Superhero> previous = lookup(superhero.name);
+                int offset = append(PUT, key, superhero.isAvailable, superhero.abilitiesMask(), superhero.weaknessesMask(), id, name);
+                indexRecord(key, offset);
+                // Published under the write lock so that the changes come out in the order of the log
+                changes.publish(superhero.name, previous, Option.some(superhero));
+                return superhero;
+            });
+        });
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return Mono.fromCallable(() -> write(() -> {
+            Option<Superhero> previous = lookup(name);
+            if (previous.isDefined()) {
+                // A stored superhero, its name fits
+                byte[] key = key(name);
+                int offset = append(DELETE, key, false, 0L, 0L, new byte[0], utf8(name));
+                indexRecord(key, offset);
+                changes.publish(name, previous, Option.none());
+            }
+            return previous;
+        }));
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return changes.flux();
+    }
+
+    /**
+     * True until the first write, read from the header: the log holds no record at all.
+     */
+    public boolean isNew() {
+        return read(() -> data.getLong(DATA_END) == DATA_HEADER_SIZE);
+    }
+
+    /**
+     * Rewrites the files with only the latest version of each live superhero.
+     */
+    public synchronized void compact() {
+        // Records are never modified once written: the live ones are copied from a snapshot, outside the lock.
+        // Synchronized: a second compaction would copy from the files the first one is replacing
+        Snapshot snapshot = read(this::liveRecords);
+        Path compactedDataPath = dataPath.resolveSibling(dataPath.getFileName() + ".compacting");
+        try (FileChannel channel = FileChannel.open(compactedDataPath, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            long liveBytes = 0;
+            for (int offset : snapshot.offsets) {
+                liveBytes += snapshot.data.getInt(offset);
+            }
+            MappedByteBuffer compacted = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_DATA_SIZE, liveBytes + DATA_HEADER_SIZE));
+            compacted.putInt(0, DATA_MAGIC);
+            compacted.putInt(4, FORMAT_VERSION);
+            int end = DATA_HEADER_SIZE;
+            for (int offset : snapshot.offsets) {
+                int length = snapshot.data.getInt(offset);
+                compacted.put(end, snapshot.data, offset, length);
+                end += length;
+            }
+            int copied = end;
+            write(() -> {
+                // The records written since the snapshot are replayed as they are, in order, after the live ones
+                int tailStart = (int) snapshot.end;
+                int tailLength = (int) data.getLong(DATA_END) - tailStart;
+                MappedByteBuffer target = tailLength > compacted.capacity() - copied
+                        ? remap(channel, copied + (long) tailLength)
+                        : compacted;
+                target.put(copied, data, tailStart, tailLength);
+                target.putLong(DATA_END, copied + tailLength);
+                target.force();
+                try {
+                    Files.move(compactedDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    dataChannel.close();
+                    openData();
+                    rebuildIndex(indexCapacityFor(snapshot.offsets.length));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MappedByteBuffer remap(FileChannel channel, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compaction.dispose();
+        write(() -> {
+            data.force();
+            index.force();
+            return null;
+        });
+        dataChannel.close();
+        indexChannel.close();
+    }
+
+    private void compactIfWorthIt() {
+        try {
+            boolean worthIt = read(() -> {
+                long used = data.getLong(DATA_END) - DATA_HEADER_SIZE;
+                return used > INITIAL_DATA_SIZE && index.getLong(INDEX_LIVE_BYTES) * 2 < used;
+            });
+            if (worthIt) {
+                compact();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Compaction of {} failed", dataPath, e);
+        }
+    }
+
+    private Option<Superhero> lookup(String name) {
+        byte[] key = key(name);
+        int slot = findSlot(key, hash(key));
+        if (index.getLong(slotPosition(slot)) == 0) {
+            return Option.none();
+        }
+        int offset = (int) index.getLong(slotPosition(slot) + 8);
+        return data.get(offset + RECORD_TYPE) == PUT ? Option.some(decode(data, offset)) : Option.none();
+    }
+
+    private Snapshot liveRecords() {
+        int capacity = index.getInt(INDEX_CAPACITY);
+        int[] offsets = new int[index.getInt(INDEX_SIZE)];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = slotPosition(slot);
+            if (index.getLong(position) != 0) {
+                int offset = (int) index.getLong(position + 8);
+                if (data.get(offset + RECORD_TYPE) == PUT) {
+                    offsets[count++] = offset;
+                }
+            }
+        }
+        return new Snapshot(data, Arrays.copyOf(offsets, count), data.getLong(DATA_END));
+    }
+
+    private record Snapshot(MappedByteBuffer data, int[] offsets, long end) {
+    }
+
+    // Data file
+
+    private void openData() throws IOException {
+        dataChannel = FileChannel.open(dataPath, CREATE, READ, WRITE);
+        long size = dataChannel.size();
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_DATA_SIZE));
+        if (size == 0) {
+            data.putInt(0, DATA_MAGIC);
+            data.putInt(4, FORMAT_VERSION);
+            data.putLong(DATA_END, DATA_HEADER_SIZE);
+        } else if (data.getInt(0) != DATA_MAGIC || data.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException(dataPath + " is not a superheroes file");
+        }
+    }
+
+    private int append(byte type, byte[] key, boolean available, long abilities, long weaknesses, byte[] id, byte[] name) {
+        int end = (int) data.getLong(DATA_END);
+        int length = RECORD_KEY + 2 + key.length + 2 + id.length + 2 + name.length;
+        ensureDataCapacity(end + length);
+        data.putInt(end, length);
+        data.put(end + RECORD_TYPE, type);
+        data.put(end + RECORD_AVAILABLE, (byte) (available ? 1 : 0));
+        data.putLong(end + RECORD_ABILITIES, abilities);
+        data.putLong(end + RECORD_WEAKNESSES, weaknesses);
+        int position = putBytes(end + RECORD_KEY, key);
+        position = putBytes(position, id);
+        putBytes(position, name);
+        // The record reaches the disk before the end of the log that makes it visible after a restart
+        data.force(end, length);
+        data.putLong(DATA_END, end + length);
+        data.force(0, DATA_HEADER_SIZE);
+        return end;
+    }
+
+    private int putBytes(int position, byte[] bytes) {
+        // Unsigned, checkLength made sure it fits
+        data.putShort(position, (short) bytes.length);
+        data.put(position + 2, bytes);
+        return position + 2 + bytes.length;
+    }
+
+    private void ensureDataCapacity(long required) {
+        if (required > data.capacity()) {
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException(dataPath + " cannot grow over 2GB");
+            }
+            long size = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * data.capacity()));
+            try {
+                data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Superhero decode(MappedByteBuffer data, int offset) {
+        long abilities = data.getLong(offset + RECORD_ABILITIES);
+        long weaknesses = data.getLong(offset + RECORD_WEAKNESSES);
+        int idPosition = offset + RECORD_KEY + 2 + stringLength(data, offset + RECORD_KEY);
+        int namePosition = idPosition + 2 + stringLength(data, idPosition);
+        return Superhero.builder()
+                .id(readString(data, idPosition))
+                .name(readString(data, namePosition))
+                .isAvailable(data.get(offset + RECORD_AVAILABLE) == 1)
+                .abilities(ABILITIES.filter(ability -> EnumMask.contains(abilities, ability)))
+                .weaknesses(WEAKNESSES.filter(weakness -> EnumMask.contains(weaknesses, weakness)))
+                .build();
+    }
+
+    private static String readString(MappedByteBuffer data, int position) {
+        byte[] bytes = new byte[stringLength(data, position)];
+        data.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(MappedByteBuffer data, int position) {
+        return Short.toUnsignedInt(data.getShort(position));
+    }
+
+    private static byte[] checkLength(String field, byte[] bytes) {
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("The " + field + " of a superhero can't exceed " + MAX_STRING_LENGTH + " utf8 bytes, got " + bytes.length);
+        }
+        return bytes;
+    }
+
+    // Index file
+
+    private void openIndex() throws IOException {
+        boolean upToDate = false;
+        if (Files.exists(indexPath)) {
+            indexChannel = FileChannel.open(indexPath, READ, WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            upToDate = index.capacity() >= INDEX_HEADER_SIZE
+                    && index.getInt(0) == INDEX_MAGIC
+                    && index.getLong(INDEX_DATA_END) == data.getLong(DATA_END);
+        }
+        if (!upToDate) {
+            // Missing or out of date after a crash: rebuilt from the log
+            rebuildIndex(INITIAL_INDEX_CAPACITY);
+        }
+    }
+
+    private void rebuildIndex(int capacity) throws IOException {
+        createIndex(capacity);
+        long end = data.getLong(DATA_END);
+        int offset = DATA_HEADER_SIZE;
+        while (offset < end) {
+            indexRecord(recordKey(offset), offset);
+            offset += data.getInt(offset);
+        }
+        index.putLong(INDEX_DATA_END, end);
+    }
+
+    private void createIndex(int capacity) throws IOException {
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        indexChannel = FileChannel.open(indexPath, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(INDEX_CAPACITY, capacity);
+        index.putLong(INDEX_DATA_END, data.getLong(DATA_END));
+    }
+
+    private void indexRecord(byte[] key, int offset) {
+        long hash = hash(key);
+        int position = slotPosition(findSlot(key, hash));
+        long liveBytes = index.getLong(INDEX_LIVE_BYTES);
+        if (index.getLong(position) == 0) {
+            index.putInt(INDEX_SIZE, index.getInt(INDEX_SIZE) + 1);
+        } else {
+            int previous = (int) index.getLong(position + 8);
+            if (data.get(previous + RECORD_TYPE) == PUT) {
+                liveBytes -= data.getInt(previous);
+            }
+        }
+        if (data.get(offset + RECORD_TYPE) == PUT) {
+            liveBytes += data.getInt(offset);
+        }
+        index.putLong(position + 8, offset);
+        index.putLong(position, hash);
+        index.putLong(INDEX_LIVE_BYTES, liveBytes);
+        index.putLong(INDEX_DATA_END, data.getLong(DATA_END));
+        if (index.getInt(INDEX_SIZE) * 2L > index.getInt(INDEX_CAPACITY)) {
+            growIndex();
+        }
+    }
+
+    private void growIndex() {
+        // Only the live records are carried over, deleted keys simply disappear from the new table
+        int[] offsets = liveRecords().offsets;
+        try {
+            createIndex(indexCapacityFor(offsets.length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int offset : offsets) {
+            indexRecord(recordKey(offset), offset);
+        }
+    }
+
+    private byte[] recordKey(int offset) {
+        byte[] key = new byte[stringLength(data, offset + RECORD_KEY)];
+        data.get(offset + RECORD_KEY + 2, key);
+        return key;
+    }
+
+    private int findSlot(byte[] key, long hash) {
+        int mask = index.getInt(INDEX_CAPACITY) - 1;
+        int slot = (int) (hash & mask);
+        while (true) {
+            int position = slotPosition(slot);
+            long slotHash = index.getLong(position);
+            if (slotHash == 0 || (slotHash == hash && keyEquals((int) index.getLong(position + 8), key))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (stringLength(data, offset + RECORD_KEY) != key.length) {
+            return false;
+        }
+        int position = offset + RECORD_KEY + 2;
+        for (int i = 0; i < key.length; i++) {
+            if (data.get(position + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int indexCapacityFor(int entries) {
+        int capacity = INITIAL_INDEX_CAPACITY;
+        while (capacity < entries * 4L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // FNV-1a, never 0 since 0 marks an empty slot
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static byte[] key(String name) {
+        return utf8(SuperheroRepository.key(name));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Locking
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
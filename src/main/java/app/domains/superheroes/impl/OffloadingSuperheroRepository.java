@@ -0,0 +1,63 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Adapter for a blocking backend, whose calls block the thread that subscribes (a Mono.fromCallable around a
+ * JDBC call, a lock, file IO...): every call is subscribed on the scheduler instead, so an event loop never blocks.
+ * See {@link io.BlockingExecution} for the choice of scheduler.
+ */
+public class OffloadingSuperheroRepository implements SuperheroRepository {
+
+    private final SuperheroRepository delegate;
+    private final Scheduler scheduler;
+
+    public OffloadingSuperheroRepository(SuperheroRepository delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        return delegate.findByName(name).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return delegate.findAllByNames(names).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return delegate.findAll().subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return delegate.findAvailableByAbilities(abilities).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return delegate.save(superhero).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return delegate.delete(name).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return delegate.changes();
+    }
+}
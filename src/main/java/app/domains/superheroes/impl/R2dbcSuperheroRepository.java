@@ -0,0 +1,207 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import app.domains.weakness.Weakness;
+import app.entities.EnumMask;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import io.vavr.Tuple;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Roster stored in a table through a (pooled) R2DBC connection factory.
+ * <p>
+ * Every query is a constant SQL string with bind markers, so the driver and the database reuse the parsed statement
+ * whatever the parameters, including findAllByNames which binds the names as a single array.
+ * Abilities and weaknesses are stored as bitmasks of their ordinals (see {@link EnumMask}).
+ * <p>
+ * Saves and deletions return the row they replaced (OLD TABLE), which feeds {@link #changes()}. The writes on a
+ * name are queued, a write starting once the previous one ended, so that its changes are published in the order
+ * the database applied them.
+ * <p>
+ * The SQL targets H2.
+ */
+public class R2dbcSuperheroRepository implements SuperheroRepository {
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS superheroes (
+                name_key VARCHAR(255) PRIMARY KEY,
+                id VARCHAR(255) NOT NULL,
+                name VARCHAR(255) NOT NULL,
+                available BOOLEAN NOT NULL,
+                abilities BIGINT NOT NULL,
+                weaknesses BIGINT NOT NULL
+            )""";
+    private static final String COLUMNS = "name_key, id, name, available, abilities, weaknesses";
+    private static final String FIND_BY_NAME = "SELECT " + COLUMNS + " FROM superheroes WHERE name_key = $1";
+    private static final String FIND_ALL_BY_NAMES = "SELECT " + COLUMNS + " FROM superheroes WHERE name_key = ANY($1)";
+    private static final String FIND_ALL = "SELECT " + COLUMNS + " FROM superheroes";
+    private static final String ANY = "SELECT 1 FROM superheroes LIMIT 1";
+    private static final String FIND_AVAILABLE_BY_ABILITIES = "SELECT " + COLUMNS + " FROM superheroes WHERE available AND BITAND(abilities, $1) <> 0";
+    private static final String SAVE = "SELECT " + COLUMNS + " FROM OLD TABLE (MERGE INTO superheroes (" + COLUMNS + ") KEY (name_key) VALUES ($1, $2, $3, $4, $5, $6))";
+    private static final String DELETE = "SELECT " + COLUMNS + " FROM OLD TABLE (DELETE FROM superheroes WHERE name_key = $1)";
+
+    private static final List<Ability> ABILITIES = List.of(Ability.values());
+    private static final List<Weakness> WEAKNESSES = List.of(Weakness.values());
+
+    private final ConnectionFactory connectionFactory;
+    private final ChangeFeed changes = new ChangeFeed();
+    // The end of the last write queued on each name, removed once no write is queued behind it
+    private final ConcurrentMap<String, Mono<Void>> lastWrites = new ConcurrentHashMap<>();
+
+    public R2dbcSuperheroRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Creates the table if needed.
+     */
+    public Mono<Void> createSchema() {
+        return update(connection -> connection.createStatement(CREATE_TABLE));
+    }
+
+    /**
+     * True when the table has no row, without scanning it.
+     */
+    public Mono<Boolean> isEmpty() {
+        return query(connection -> connection.createStatement(ANY), row -> Boolean.TRUE)
+                .hasElements()
+                .map(any -> !any);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        return query(connection -> connection.createStatement(FIND_BY_NAME).bind("$1", key(name)), this::toSuperhero)
+                .next()
+                .map(Option::some)
+                .defaultIfEmpty(Option.none());
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        if (names.isEmpty()) {
+            return Mono.just(HashMap.empty());
+        }
+        String[] keys = names.map(R2dbcSuperheroRepository::key).toJavaArray(String[]::new);
+        return query(connection -> connection.createStatement(FIND_ALL_BY_NAMES).bind("$1", keys), this::toSuperhero)
+                .collectList()
+                .map(found -> {
+                    Map<String, Superhero> byKey = HashMap.ofEntries(List.ofAll(found).map(hero -> Tuple.of(key(hero.name), hero)));
+                    return names
+                            .flatMap(name -> byKey.get(key(name)).map(hero -> Tuple.of(name, hero)))
+                            .toMap(Function.identity());
+                });
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return query(connection -> connection.createStatement(FIND_ALL), this::toSuperhero);
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return query(connection -> connection.createStatement(FIND_AVAILABLE_BY_ABILITIES).bind("$1", EnumMask.of(abilities)), this::toSuperhero);
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return queued(key(superhero.name), query(connection -> connection.createStatement(SAVE)
+                .bind("$1", key(superhero.name))
+                .bind("$2", superhero.id)
+                .bind("$3", superhero.name)
+                .bind("$4", superhero.isAvailable)
+                .bind("$5", superhero.abilitiesMask())
+                .bind("$6", superhero.weaknessesMask()), this::toSuperhero)
+                .next()
+                .map(Option::some)
+                .defaultIfEmpty(Option.none())
+                .doOnNext(previous -> changes.publish(superhero.name, previous, Option.some(superhero)))
+                .thenReturn(superhero));
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return queued(key(name), query(connection -> connection.createStatement(DELETE).bind("$1", key(name)), this::toSuperhero)
+                .next()
+                .map(Option::some)
+                .defaultIfEmpty(Option.none())
+                .doOnNext(previous -> {
+                    if (previous.isDefined()) {
+                        changes.publish(name, previous, Option.none());
+                    }
+                }));
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return changes.flux();
+    }
+
+    // A write cancelled while queued ends with the previous one, so that the next write still waits for the latter
+    private <T> Mono<T> queued(String key, Mono<T> write) {
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> ended = Sinks.empty();
+            Mono<Void> end = ended.asMono();
+            Mono<Void> previous = Option.of(lastWrites.put(key, end)).getOrElse(Mono.empty());
+            return previous
+                    .then(write)
+                    .doFinally(signal -> previous.subscribe(null, null, () -> {
+                        lastWrites.remove(key, end);
+                        ended.tryEmitEmpty();
+                    }));
+        });
+    }
+
+    // The connection goes back to the pool when the rows are consumed, on error or on cancellation
+    private <T> Flux<T> query(Function<Connection, Statement> statement, Function<Row, T> mapper) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(statement.apply(connection).execute())
+                        .concatMap(result -> result.map((row, metadata) -> mapper.apply(row))),
+                Connection::close
+        );
+    }
+
+    private Mono<Void> update(Function<Connection, Statement> statement) {
+        return Mono.usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(statement.apply(connection).execute())
+                        .concatMap(Result::getRowsUpdated)
+                        .then(),
+                Connection::close
+        );
+    }
+
+    private Superhero toSuperhero(Row row) {
+        long abilities = row.get("abilities", Long.class);
+        long weaknesses = row.get("weaknesses", Long.class);
+        return Superhero.builder()
+                .id(row.get("id", String.class))
+                .name(row.get("name", String.class))
+                .isAvailable(row.get("available", Boolean.class))
+                .abilities(ABILITIES.filter(ability -> EnumMask.contains(abilities, ability)))
+                .weaknesses(WEAKNESSES.filter(weakness -> EnumMask.contains(weaknesses, weakness)))
+                .build();
+    }
+
+    private static String key(String name) {
+        return SuperheroRepository.key(name);
+    }
+}
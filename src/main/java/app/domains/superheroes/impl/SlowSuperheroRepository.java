@@ -0,0 +1,81 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * Stands for a saturated backend, for load tests: every read holds one of capacity threads for latency,
+ * the reads over capacity wait for a thread, so the latency grows with the load like in a real connection pool.
+ */
+public class SlowSuperheroRepository implements SuperheroRepository {
+
+    private final SuperheroRepository delegate;
+    private final Duration latency;
+    private final Scheduler scheduler;
+
+    public SlowSuperheroRepository(SuperheroRepository delegate, Duration latency, int capacity) {
+        this.delegate = delegate;
+        this.latency = latency;
+        this.scheduler = Schedulers.newBoundedElastic(capacity, Integer.MAX_VALUE, "slow-superheroes");
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        return slow(delegate.findByName(name));
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        return slow(delegate.findAllByNames(names));
+    }
+
+    @Override
+    public Flux<Superhero> findAll() {
+        return slow(Mono.empty()).thenMany(delegate.findAll());
+    }
+
+    @Override
+    public Flux<Superhero> findAvailableByAbilities(Set<Ability> abilities) {
+        return slow(Mono.empty()).thenMany(delegate.findAvailableByAbilities(abilities));
+    }
+
+    @Override
+    public Mono<Superhero> save(Superhero superhero) {
+        return delegate.save(superhero);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> delete(String name) {
+        return delegate.delete(name);
+    }
+
+    @Override
+    public Flux<SuperheroChange> changes() {
+        return delegate.changes();
+    }
+
+    private <T> Mono<T> slow(Mono<T> mono) {
+        return Mono.<Void>fromRunnable(this::hold)
+                .subscribeOn(scheduler)
+                .then(mono);
+    }
+
+    private void hold() {
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
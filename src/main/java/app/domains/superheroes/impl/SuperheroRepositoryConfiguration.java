@@ -0,0 +1,116 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.SuperheroRepository;
+import io.BlockingExecution;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import javax.annotation.PreDestroy;
+
+@Configuration
+public class SuperheroRepositoryConfiguration {
+
+    // The decorators running their own loop, stopped with the context
+    private final Disposable.Composite decorators = Disposables.composite();
+
+    @Bean
+    @Primary
+    SuperheroRepository superheroRepository(
+            @Qualifier("backend") SuperheroRepository backend,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${superheroes.batching.max-batch-size}") int maxBatchSize,
+            @Value("${superheroes.batching.window}") Duration window,
+            @Value("${superheroes.batching.max-concurrent-batches}") int maxConcurrentBatches,
+            @Value("${superheroes.cache.maximum-size}") long cacheMaximumSize,
+            @Value("${superheroes.cache.ttl}") Duration cacheTtl,
+            @Value("${superheroes.cache.negative-ttl}") Duration cacheNegativeTtl,
+            @Value("${superheroes.slow.latency}") Duration slowLatency,
+            @Value("${superheroes.slow.capacity}") int slowCapacity) {
+        SuperheroRepository repository = backend;
+        if (environment.acceptsProfiles(Profiles.of("slow"))) {
+            repository = new SlowSuperheroRepository(repository, slowLatency, slowCapacity);
+        }
+        if (environment.acceptsProfiles(Profiles.of("batching"))) {
+            BatchingSuperheroRepository batching = new BatchingSuperheroRepository(repository, maxBatchSize, window, maxConcurrentBatches);
+            decorators.add(batching);
+            repository = batching;
+        }
+        if (environment.acceptsProfiles(Profiles.of("cache"))) {
+            repository = new CachingSuperheroRepository(repository, cacheMaximumSize, cacheTtl, cacheNegativeTtl, meterRegistry);
+        }
+        return repository;
+    }
+
+    @PreDestroy
+    void disposeDecorators() {
+        decorators.dispose();
+    }
+
+    @Bean(destroyMethod = "close")
+    @Profile("mmap")
+    MappedFileSuperheroRepository mappedFileSuperheroRepository(
+            @Value("${superheroes.mmap.directory}") Path directory,
+            @Value("${superheroes.mmap.compaction-interval}") Duration compactionInterval) {
+        MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, compactionInterval);
+        // A new file starts with the same roster as the in memory repository
+        if (repository.isNew()) {
+            new InMemorySuperheroRepository().findAll().concatMap(repository::save).blockLast();
+        }
+        return repository;
+    }
+
+    @Bean
+    @Qualifier("backend")
+    @Profile("mmap")
+    SuperheroRepository mappedFileBackend(
+            MappedFileSuperheroRepository mappedFileSuperheroRepository,
+            @Value("${superheroes.mmap.execution}") BlockingExecution execution) {
+        // Lookups read the mapped files under a lock and writes may block on the disk
+        return new OffloadingSuperheroRepository(mappedFileSuperheroRepository, execution.scheduler());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @Profile("r2dbc")
+    ConnectionPool superheroesConnectionPool(
+            @Value("${superheroes.r2dbc.url}") String url,
+            @Value("${superheroes.r2dbc.pool.initial-size}") int initialSize,
+            @Value("${superheroes.r2dbc.pool.max-size}") int maxSize,
+            @Value("${superheroes.r2dbc.pool.max-acquire-time}") Duration maxAcquireTime,
+            @Value("${superheroes.r2dbc.pool.max-idle-time}") Duration maxIdleTime) {
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                // Fails fast instead of queuing forever when every connection is busy
+                .maxAcquireTime(maxAcquireTime)
+                .maxIdleTime(maxIdleTime)
+                .build());
+    }
+
+    @Bean
+    @Qualifier("backend")
+    @Profile("r2dbc")
+    R2dbcSuperheroRepository r2dbcSuperheroRepository(ConnectionPool superheroesConnectionPool) {
+        R2dbcSuperheroRepository repository = new R2dbcSuperheroRepository(superheroesConnectionPool);
+        repository.createSchema().block();
+        if (repository.isEmpty().block()) {
+            new InMemorySuperheroRepository().findAll().concatMap(repository::save).blockLast();
+        }
+        return repository;
+    }
+}
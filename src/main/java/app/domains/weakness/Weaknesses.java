@@ -1,6 +1,7 @@
 package app.domains.weakness;
 
 import app.domains.superheroes.Superhero;
+import app.entities.EnumMask;
 import app.entities.Problem;
 import io.IO;
 import io.vavr.Tuple;
@@ -20,18 +21,24 @@ public class Weaknesses {
             Problem.SuperVilain,  List.of(Weakness.TooNice, Weakness.Cryptonic, Weakness.Borderline)
     );
 
+    // indexed by Problem ordinal
+    private final long[] requiredWeaknesses = EnumMask.byOrdinal(Problem.values(), IA);
+
     public IO<WeaknessesError, Tuple0> checkWeaknesses(Superhero superhero, Problem problem) {
 
-        List<Weakness> requiredWeaknesses = IA.getOrElse(problem, List.empty());
-        List<Weakness> superheroWeaknesses = superhero.weaknesses;
+        long required = requiredWeaknesses[problem.ordinal()];
 
-        List<Weakness> usableWeaknesses = superheroWeaknesses.filter(requiredWeaknesses::contains);
-        if (usableWeaknesses.isEmpty()) {
+        if ((superhero.weaknessesMask() & required) == 0) {
             return IO.unit();
         } else {
+            List<Weakness> usableWeaknesses = superhero.weaknesses.filter(weakness -> EnumMask.contains(required, weakness));
             return IO.error(new WeaknessesError.WeaknessMatchError(usableWeaknesses));
         }
     }
 
+    public int countMatchingWeaknesses(Superhero superhero, Problem problem) {
+        return Long.bitCount(superhero.weaknessesMask() & requiredWeaknesses[problem.ordinal()]);
+    }
+
 
 }
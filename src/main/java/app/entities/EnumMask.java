@@ -0,0 +1,37 @@
+package app.entities;
+
+import io.vavr.collection.Map;
+
+/**
+ * Sets of enum values encoded as a long, one bit per ordinal (the enums used here have far fewer than 64 values).
+ */
+public final class EnumMask {
+
+    private EnumMask() {
+    }
+
+    public static <T extends Enum<T>> long of(Iterable<T> values) {
+        long mask = 0L;
+        for (T value : values) {
+            mask |= bit(value);
+        }
+        return mask;
+    }
+
+    /**
+     * The mask of the values of each key, indexed by the ordinal of the key (0 for a key without values).
+     */
+    public static <K extends Enum<K>, T extends Enum<T>> long[] byOrdinal(K[] keys, Map<K, ? extends Iterable<T>> values) {
+        long[] masks = new long[keys.length];
+        values.forEach((key, keyValues) -> masks[key.ordinal()] = of(keyValues));
+        return masks;
+    }
+
+    public static long bit(Enum<?> value) {
+        return 1L << value.ordinal();
+    }
+
+    public static boolean contains(long mask, Enum<?> value) {
+        return (mask & bit(value)) != 0;
+    }
+}
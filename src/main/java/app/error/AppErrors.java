@@ -1,24 +1,33 @@
 package app.error;
 
+import io.Errors;
 import io.vavr.collection.List;
 
 public class AppErrors<E extends AppError> {
 
-    public final List<E> errors;
+    public final Errors<E> errors;
 
-    public AppErrors(List<E> errors) {
+    public AppErrors(Errors<E> errors) {
         this.errors = errors;
     }
 
+    public AppErrors(List<E> errors) {
+        this(Errors.ofAll(errors));
+    }
+
     public static <Err extends AppError> AppErrors<Err> empty() {
-        return new AppErrors<>(List.empty());
+        return new AppErrors<>(Errors.empty());
     }
 
     public AppErrors<E> combine(AppErrors<E> other) {
-        return new AppErrors<>(errors.appendAll(other.errors));
+        return new AppErrors<>(errors.concat(other.errors));
+    }
+
+    public boolean isUnavailable() {
+        return errors.exists(err -> err instanceof UnavailableError);
     }
 
     public List<ErrorDto> dtoErrors() {
-        return errors.map(err -> new ErrorDto(err.message(), err.path()));
+        return errors.toList().map(err -> new ErrorDto(err.message(), err.path()));
     }
 }
@@ -0,0 +1,7 @@
+package app.error;
+
+/**
+ * The request was shed to protect the latency of the others, it may be retried later (429).
+ */
+public record TooManyRequestsError(String message) implements AppError {
+}
@@ -0,0 +1,7 @@
+package app.error;
+
+/**
+ * An error caused by the system rather than by the request: the request may succeed later (503).
+ */
+public interface UnavailableError extends AppError {
+}
@@ -1,7 +1,9 @@
 package app.service;
 
 import app.domains.superheroes.SuperheroError;
+import io.Errors;
 import io.IO;
+import io.IOMetrics;
 import app.command.AskForHelp;
 import app.domains.abilities.Abilities;
 import app.domains.abilities.Ability;
@@ -9,42 +11,65 @@ import app.domains.superheroes.SuperHeroes;
 import app.domains.superheroes.Superhero;
 import app.domains.superheroes.SuperheroErrors;
 import app.domains.weakness.Weaknesses;
+import app.entities.Problem;
 import app.error.AppError;
 import app.error.AppErrors;
 import io.vavr.collection.List;
-import io.vavr.collection.Seq;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Builder;
 import lombok.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class FindHelpService {
 
     private final SuperHeroes superHeroes;
     private final Abilities abilities;
     private final Weaknesses weaknesses;
+    private final HelpResultCache helpResultCache;
+    private final IOMetrics heroLookupMetrics;
+    private final IOMetrics abilitiesCheckMetrics;
+    private final IOMetrics weaknessesCheckMetrics;
 
-    public FindHelpService(SuperHeroes superHeroes, Abilities abilities, Weaknesses weaknesses) {
+    public FindHelpService(SuperHeroes superHeroes, Abilities abilities, Weaknesses weaknesses, HelpResultCache helpResultCache, MeterRegistry meterRegistry) {
         this.superHeroes = superHeroes;
         this.abilities = abilities;
         this.weaknesses = weaknesses;
+        this.helpResultCache = helpResultCache;
+        this.heroLookupMetrics = IOMetrics.of(meterRegistry, "hero-lookup");
+        this.abilitiesCheckMetrics = IOMetrics.of(meterRegistry, "abilities-check");
+        this.weaknessesCheckMetrics = IOMetrics.of(meterRegistry, "weaknesses-check");
     }
 
     public IO<HelpErrors, HelpResult> findHelp(AskForHelp askForHelp) {
         return this.superHeroes.lookForSuperhero(askForHelp.name)
+            .metrics(heroLookupMetrics)
+            .traced("hero-lookup")
             .mapError(HelpErrors::fromSuperheroError)
-            .flatMap(superhero ->
-                    IO.parZip(
-                            abilities.checkAbilities(superhero, askForHelp.problem).<AppError>downcast(),
-                            weaknesses.checkWeaknesses(superhero, askForHelp.problem).<AppError>downcast(),
-                            (abilities, __) -> HelpResult.builder()
-                                    .hero(superhero)
-                                    .matchingAbilities(abilities)
-                                    .build()
-                    )
-                    .mapError(HelpErrors::new)
-            );
+            .flatMap(superhero -> helpResultCache.get(superhero, askForHelp.problem, () -> IO.ifTraced(
+                    () -> checkHelp(superhero, askForHelp.problem, true),
+                    () -> checkHelp(superhero, askForHelp.problem, false)
+            )));
+
+    }
+
+    // Untraced, the checks are pure and parZip evaluates them eagerly.
+    // They are measured when they run, i.e. on the HelpResultCache misses only: hero-lookup counts the requests.
+    private IO<HelpErrors, HelpResult> checkHelp(Superhero superhero, Problem problem, boolean traced) {
+        return IO.parZip(
+                stage("abilities-check", traced, () -> IO.timed(abilitiesCheckMetrics, () -> abilities.checkAbilities(superhero, problem))).<AppError>downcast(),
+                stage("weaknesses-check", traced, () -> IO.timed(weaknessesCheckMetrics, () -> weaknesses.checkWeaknesses(superhero, problem))).<AppError>downcast(),
+                (abilities, __) -> HelpResult.builder()
+                        .hero(superhero)
+                        .matchingAbilities(abilities)
+                        .build()
+        ).mapError(HelpErrors::new);
+    }
 
+    private static <E, A> IO<E, A> stage(String name, boolean traced, Supplier<IO<E, A>> stage) {
+        return traced ? IO.traced(name, stage) : stage.get();
     }
 
     @Builder(toBuilder = true)
@@ -55,15 +80,15 @@ public class FindHelpService {
     }
 
     public static class HelpErrors extends AppErrors<AppError> {
-        public HelpErrors(Seq<AppError> errors) {
-            super(errors.toList());
+        public HelpErrors(Errors<AppError> errors) {
+            super(errors);
         }
 
         public static HelpErrors fromSuperheroErrors(SuperheroErrors errors) {
             return new HelpErrors(errors.errors.map(e -> (AppError) e));
         }
         public static HelpErrors fromSuperheroError(SuperheroError error) {
-            return new HelpErrors(List.<AppError>of(error));
+            return new HelpErrors(Errors.of(error));
         }
     }
 }
@@ -0,0 +1,124 @@
+package app.service;
+
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroRepository;
+import app.entities.Problem;
+import app.service.FindHelpService.HelpErrors;
+import app.service.FindHelpService.HelpResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.IO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Memoizes the outcome of the abilities and weaknesses checks, which only depend on the superhero and the problem.
+ * <p>
+ * Entries are keyed by (hero id, hero version, problem), the version being the content hash of the superhero:
+ * a modified superhero never hits the entry of its previous version. The cached superhero is compared on a hit,
+ * so a hash collision recomputes instead of answering for another superhero. The entries of a superhero are evicted
+ * as soon as the repository reports a change on it. If the feed of changes fails (a subscriber falling too far behind),
+ * it is subscribed to again and every entry is evicted, since the changes missed in between are unknown.
+ * <p>
+ * A hot superhero is served the same HelpResult instance, and when serialized is on, the same JSON bytes:
+ * they are encoded once and kept as long as the HelpResult is.
+ */
+@Component
+public class HelpResultCache {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(HelpResultCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean serialized;
+    private final Cache<Key, Entry> results;
+    // weak keys are compared by identity: the bytes belong to a HelpResult instance and go away with it
+    private final Cache<HelpResult, byte[]> json;
+    private final Disposable invalidations;
+
+    public HelpResultCache(SuperheroRepository repository,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${helps.cache.maximum-size}") long maximumSize,
+                           @Value("${helps.cache.serialized}") boolean serialized) {
+        this.objectMapper = objectMapper;
+        this.serialized = serialized;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.json = Caffeine.newBuilder()
+                .weakKeys()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "help-results");
+        // Evicting everything on the first subscription is a no-op, on a resubscription it covers the missed changes
+        this.invalidations = repository.changes()
+                .doOnSubscribe(__ -> results.invalidateAll())
+                .doOnError(e -> LOGGER.warn("Lost the superhero changes, evicting every help result", e))
+                .retry()
+                .subscribe(change -> change.previous().forEach(this::invalidate));
+    }
+
+    @PreDestroy
+    void stopInvalidations() {
+        invalidations.dispose();
+    }
+
+    /**
+     * The cached outcome for this superhero and problem, computed with compute on a miss and cached once known.
+     */
+    public IO<HelpErrors, HelpResult> get(Superhero superhero, Problem problem, Supplier<IO<HelpErrors, HelpResult>> compute) {
+        Key key = new Key(superhero.id, superhero.hashCode(), problem);
+        Entry entry = results.getIfPresent(key);
+        if (entry != null && entry.superhero.equals(superhero)) {
+            return IO.fromEither(entry.result);
+        }
+        return IO.fromMonoEither(compute.get().unlift()
+                .doOnNext(result -> results.put(key, new Entry(superhero, result))));
+    }
+
+    /**
+     * The JSON encoding of a result, encoded on the first call for this instance.
+     * Empty when serialized is off or if the result can't be encoded, the caller encodes it the usual way.
+     */
+    public Option<byte[]> json(HelpResult result) {
+        if (!serialized) {
+            return Option.none();
+        }
+        return Option.of(json.get(result, this::encode));
+    }
+
+    public void invalidate(Superhero superhero) {
+        int version = superhero.hashCode();
+        for (Problem problem : Problem.values()) {
+            results.invalidate(new Key(superhero.id, version, problem));
+        }
+    }
+
+    private byte[] encode(HelpResult result) {
+        try {
+            return objectMapper.writeValueAsBytes(result);
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Unable to encode {}", result, e);
+            return null;
+        }
+    }
+
+    private record Key(String heroId, int heroVersion, Problem problem) {
+    }
+
+    private record Entry(Superhero superhero, Either<HelpErrors, HelpResult> result) {
+    }
+}
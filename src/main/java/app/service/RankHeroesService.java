@@ -0,0 +1,102 @@
+package app.service;
+
+import app.domains.abilities.Abilities;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroRepository;
+import app.domains.weakness.Weaknesses;
+import app.entities.Problem;
+import io.vavr.collection.List;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+@Component
+public class RankHeroesService {
+
+    // Each rail keeps up to limit heroes, the limit comes from the client
+    public static final int MAX_LIMIT = 1000;
+
+    private final SuperheroRepository superheroRepository;
+    private final Abilities abilities;
+    private final Weaknesses weaknesses;
+
+    public RankHeroesService(SuperheroRepository superheroRepository, Abilities abilities, Weaknesses weaknesses) {
+        this.superheroRepository = superheroRepository;
+        this.abilities = abilities;
+        this.weaknesses = weaknesses;
+    }
+
+    /**
+     * Scores in parallel the available heroes having at least one of the abilities required by the problem
+     * (the repository may find them through an index) and keeps the `limit` best ones. The score is the number of
+     * useful abilities minus the number of weaknesses exposed to the problem.
+     * Each rail keeps its own bounded heap, so memory stays O(limit). limit must be within [1, MAX_LIMIT].
+     */
+    public Mono<List<RankedHero>> findBestHeroes(Problem problem, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ", got " + limit));
+        }
+        return superheroRepository.findAvailableByAbilities(abilities.abilitiesRequiredFor(problem))
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .map(hero -> new RankedHero(
+                        hero,
+                        abilities.countMatchingAbilities(hero, problem),
+                        weaknesses.countMatchingWeaknesses(hero, problem)
+                ))
+                .reduce(() -> new TopK(limit), TopK::add)
+                .reduce(TopK::merge)
+                .map(TopK::toList)
+                .defaultIfEmpty(List.empty());
+    }
+
+    @Value
+    public static class RankedHero {
+        Superhero hero;
+        int matchingAbilities;
+        int matchingWeaknesses;
+
+        public int getScore() {
+            return matchingAbilities - matchingWeaknesses;
+        }
+    }
+
+    static class TopK {
+
+        private static final Comparator<RankedHero> WORST_FIRST = Comparator
+                .comparingInt(RankedHero::getScore)
+                .thenComparing(ranked -> ranked.hero.name, Comparator.reverseOrder());
+
+        private final int k;
+        private final PriorityQueue<RankedHero> heap;
+
+        TopK(int k) {
+            this.k = k;
+            // Grows with the heroes actually kept instead of being presized to k
+            this.heap = new PriorityQueue<>(WORST_FIRST);
+        }
+
+        TopK add(RankedHero ranked) {
+            if (heap.size() < k) {
+                heap.offer(ranked);
+            } else if (k > 0 && WORST_FIRST.compare(ranked, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(ranked);
+            }
+            return this;
+        }
+
+        TopK merge(TopK other) {
+            other.heap.forEach(this::add);
+            return this;
+        }
+
+        List<RankedHero> toList() {
+            return List.ofAll(heap).sorted(WORST_FIRST.reversed());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package app.service;
+
+import app.domains.abilities.Abilities;
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.SuperheroRepository;
+import app.domains.weakness.Weaknesses;
+import app.entities.Problem;
+import app.service.RankHeroesService.RankedHero;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live answers to "who can handle this problem": the superheroes with at least minMatchingAbilities abilities useful
+ * for the problem, no weakness exposed to it and, if availableOnly, available.
+ * <p>
+ * Each query has one shared answer, loaded once from the roster and then kept up to date with the repository changes:
+ * a change only reassesses the superhero it concerns. A watcher gets the current answer as ADDED deltas, then the
+ * deltas as they happen. A watcher more than bufferSize deltas behind is failed, it has to watch again.
+ * The answer is dropped with its last watcher, so there is at most one per query being watched; minMatchingAbilities
+ * is bounded by the number of abilities useful for the problem, which bounds the number of queries.
+ * <p>
+ * The changes are applied in the order of the repository writes (see {@link SuperheroRepository#changes()}), so the
+ * state kept for a superhero is never older than its last write. They are applied on the parallel scheduler, never in
+ * the thread of the write. Superheroes are tracked by {@link SuperheroRepository#key(String)} and named in the
+ * deltas as they are stored.
+ */
+@Component
+public class StandingAssignmentsService {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(StandingAssignmentsService.class);
+
+    private final SuperheroRepository superheroRepository;
+    private final Abilities abilities;
+    private final Weaknesses weaknesses;
+    private final int bufferSize;
+    private final ConcurrentMap<AssignmentQuery, LiveAssignments> live = new ConcurrentHashMap<>();
+
+    public StandingAssignmentsService(SuperheroRepository superheroRepository,
+                                      Abilities abilities,
+                                      Weaknesses weaknesses,
+                                      @Value("${helps.watch.buffer-size}") int bufferSize) {
+        this.superheroRepository = superheroRepository;
+        this.abilities = abilities;
+        this.weaknesses = weaknesses;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * minMatchingAbilities must be within [1, maxMatchingAbilities(problem)].
+     */
+    public Flux<AssignmentDelta> watch(AssignmentQuery query) {
+        int max = maxMatchingAbilities(query.problem());
+        if (query.minMatchingAbilities() < 1 || query.minMatchingAbilities() > max) {
+            return Flux.error(new IllegalArgumentException("minMatchingAbilities must be between 1 and " + max + ", got " + query.minMatchingAbilities()));
+        }
+        return Flux.defer(() -> {
+            while (true) {
+                LiveAssignments assignments = live.computeIfAbsent(query, LiveAssignments::new);
+                Option<Flux<AssignmentDelta>> deltas = assignments.watch();
+                if (deltas.isDefined()) {
+                    return deltas.get();
+                }
+                // Its last watcher left since it was looked up, the next lookup creates a new one
+                live.remove(query, assignments);
+            }
+        });
+    }
+
+    public int maxMatchingAbilities(Problem problem) {
+        return abilities.abilitiesRequiredFor(problem).size();
+    }
+
+    public record AssignmentQuery(Problem problem, boolean availableOnly, int minMatchingAbilities) {
+    }
+
+    /**
+     * assignment is the new state of the superhero, empty when REMOVED.
+     */
+    public record AssignmentDelta(Type type, String name, Option<RankedHero> assignment) {
+        public enum Type {
+            ADDED, UPDATED, REMOVED
+        }
+    }
+
+    private final class LiveAssignments {
+
+        private final AssignmentQuery query;
+        // guarded by this
+        private Map<String, RankedHero> assignments = HashMap.empty();
+        private final java.util.List<Sinks.Many<AssignmentDelta>> watchers = new ArrayList<>();
+        private boolean started;
+        private final Disposable.Composite subscriptions = Disposables.composite();
+
+        private LiveAssignments(AssignmentQuery query) {
+            this.query = query;
+        }
+
+        private synchronized void start() {
+            if (started) {
+                return;
+            }
+            started = true;
+            // The changes are buffered from now on and applied once the roster is loaded, so none is missed
+            Sinks.Many<SuperheroChange> pending = Sinks.many().unicast().onBackpressureBuffer();
+            // A feed error (e.g. this subscriber fell too far behind) fails the answer, which can't be trusted anymore
+            subscriptions.add(superheroRepository.changes().subscribe(
+                    change -> pending.emitNext(change, Sinks.EmitFailureHandler.FAIL_FAST),
+                    error -> pending.emitError(error, Sinks.EmitFailureHandler.FAIL_FAST)));
+            subscriptions.add(superheroRepository.findAll()
+                    .map(hero -> new SuperheroChange(hero.name, Option.none(), Option.some(hero)))
+                    .concatWith(pending.asFlux())
+                    // Off the thread of the write, which may hold the write lock of the repository
+                    .publishOn(Schedulers.parallel())
+                    .subscribe(this::apply, this::fail));
+        }
+
+        private Option<RankedHero> assess(Superhero hero) {
+            if (query.availableOnly() && !Boolean.TRUE.equals(hero.isAvailable)) {
+                return Option.none();
+            }
+            RankedHero ranked = new RankedHero(
+                    hero,
+                    abilities.countMatchingAbilities(hero, query.problem()),
+                    weaknesses.countMatchingWeaknesses(hero, query.problem())
+            );
+            return Option.when(ranked.getMatchingAbilities() >= query.minMatchingAbilities() && ranked.getMatchingWeaknesses() == 0, ranked);
+        }
+
+        private synchronized void apply(SuperheroChange change) {
+            String key = SuperheroRepository.key(change.name());
+            Option<RankedHero> before = assignments.get(key);
+            // A superhero left out stays out if nothing the assessment depends on changed
+            if (before.isEmpty() && change.previous().isDefined() && !isRelevant(change)) {
+                return;
+            }
+            Option<RankedHero> after = change.current().flatMap(this::assess);
+            if (before.equals(after)) {
+                return;
+            }
+            AssignmentDelta.Type type = before.isEmpty() ? AssignmentDelta.Type.ADDED
+                    : after.isEmpty() ? AssignmentDelta.Type.REMOVED
+                    : AssignmentDelta.Type.UPDATED;
+            assignments = after.fold(() -> assignments.remove(key), assignment -> assignments.put(key, assignment));
+            publish(new AssignmentDelta(type, after.orElse(before).get().getHero().name, after));
+        }
+
+        private boolean isRelevant(SuperheroChange change) {
+            return change.abilitiesChanged() || change.weaknessesChanged() || (query.availableOnly() && change.availabilityChanged());
+        }
+
+        // Empty if it was stopped, by its last watcher leaving or by a failure
+        private synchronized Option<Flux<AssignmentDelta>> watch() {
+            if (subscriptions.isDisposed()) {
+                return Option.none();
+            }
+            start();
+            if (subscriptions.isDisposed()) {
+                return Option.some(Flux.error(new IllegalStateException("Standing assignments of " + query + " stopped")));
+            }
+            // Room for the current answer on top of bufferSize deltas
+            Sinks.Many<AssignmentDelta> sink = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<AssignmentDelta>get(assignments.size() + bufferSize).get());
+            assignments.values().forEach(assignment ->
+                    sink.tryEmitNext(new AssignmentDelta(AssignmentDelta.Type.ADDED, assignment.getHero().name, Option.some(assignment))));
+            watchers.add(sink);
+            return Option.some(sink.asFlux().doFinally(__ -> unwatch(sink)));
+        }
+
+        // A watcher failed by publish is already out of the list
+        private synchronized void unwatch(Sinks.Many<AssignmentDelta> sink) {
+            watchers.remove(sink);
+            if (watchers.isEmpty() && !subscriptions.isDisposed()) {
+                live.remove(query, this);
+                subscriptions.dispose();
+            }
+        }
+
+        private synchronized void publish(AssignmentDelta delta) {
+            watchers.removeIf(sink -> {
+                Sinks.EmitResult result = sink.tryEmitNext(delta);
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    sink.tryEmitError(new IllegalStateException("Watcher of " + query + " is more than " + bufferSize + " deltas behind"));
+                }
+                return result.isFailure();
+            });
+        }
+
+        // The answer can't be kept up to date anymore: the watchers are failed and the next one reloads it
+        private synchronized void fail(Throwable error) {
+            LOGGER.error("Standing assignments of {} stopped", query, error);
+            live.remove(query, this);
+            subscriptions.dispose();
+            watchers.forEach(sink -> sink.tryEmitError(error));
+            watchers.clear();
+        }
+    }
+}
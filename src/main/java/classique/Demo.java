@@ -1,6 +1,7 @@
 package classique;
 
 import app.domains.superheroes.Superhero;
+import io.Errors;
 import io.IO;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
@@ -111,7 +112,7 @@ public class Demo {
 
         IO<Error, Seq<Superhero>> all = IO.sequence(List.of(spiderman, batman, superman));
 
-        IO<Seq<Error>, Tuple2<Person, Superhero>> mayAndspiderman = IO.parZip(auntMay, spiderman);
+        IO<Errors<Error>, Tuple2<Person, Superhero>> mayAndspiderman = IO.parZip(auntMay, spiderman);
 
 //        // Checked exception
 //        Mono<Person> person = Mono.fromCallable(() -> createPerson("John Doe", "johndoe@gmail.com"));
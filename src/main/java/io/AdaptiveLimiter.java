@@ -0,0 +1,116 @@
+package io;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted to the observed latency (AIMD):
+ * <ul>
+ *     <li>a call faster than latencyThreshold, while the limit is at least half used, raises the limit by 1 / limit,
+ *     about +1 once limit calls went well</li>
+ *     <li>a slower call or a dropped call (failed, timed out...) multiplies the limit by backoffRatio</li>
+ * </ul>
+ * The limit stays within [minLimit, maxLimit]. The calls over the limit are rejected right away instead of queuing.
+ * A caller with a share below 1 is only let in while less than share * limit calls are in flight: under pressure,
+ * the low priority calls are shed first.
+ * <p>
+ * Exposes adaptive.limiter.limit, adaptive.limiter.in.flight and adaptive.limiter.rejected, tagged by name.
+ */
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    // written under this, read without locking
+    private volatile double limit;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio, MeterRegistry registry) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.rejected = Counter.builder("adaptive.limiter.rejected").tag("name", name).register(registry);
+        Gauge.builder("adaptive.limiter.limit", this, AdaptiveLimiter::limit).tag("name", name).register(registry);
+        Gauge.builder("adaptive.limiter.in.flight", inFlight, AtomicInteger::get).tag("name", name).register(registry);
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    /**
+     * A permit if less than share * limit calls are in flight (share in ]0, 1]), to be released when the call ends.
+     */
+    public Option<Permit> tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                rejected.increment();
+                return Option.none();
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return Option.some(new Permit(current + 1));
+    }
+
+    private synchronized void onSample(long latencyNanos, int inFlightAtStart) {
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlightAtStart * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public final class Permit {
+
+        private final long start = System.nanoTime();
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * The call went through, its latency is a sample for the limit.
+         */
+        public void success() {
+            if (release()) {
+                onSample(System.nanoTime() - start, inFlightAtStart);
+            }
+        }
+
+        /**
+         * The call failed because of the load (timeout, overloaded dependency...): the limit goes down.
+         */
+        public void dropped() {
+            if (release()) {
+                decrease();
+            }
+        }
+
+        private boolean release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Where blocking calls run, see {@link IO#blocking(Supplier)}.
+ * <ul>
+ *     <li>VIRTUAL_THREADS: one new virtual thread per call, a blocked call only parks its virtual thread</li>
+ *     <li>BOUNDED_ELASTIC: the reactor pool, capped at 10 threads per core, the calls over the cap are queued</li>
+ *     <li>IMMEDIATE: on the subscribing thread, for calls that are known to be fast</li>
+ * </ul>
+ * A virtual thread stays pinned to its carrier while it blocks inside a synchronized block, blocking backends
+ * run on virtual threads should lock with java.util.concurrent locks.
+ */
+public enum BlockingExecution {
+
+    VIRTUAL_THREADS, BOUNDED_ELASTIC, IMMEDIATE;
+
+    public Scheduler scheduler() {
+        return switch (this) {
+            case VIRTUAL_THREADS -> virtualThreads();
+            case BOUNDED_ELASTIC -> Schedulers.boundedElastic();
+            case IMMEDIATE -> Schedulers.immediate();
+        };
+    }
+
+    public static Scheduler virtualThreads() {
+        return VirtualThreads.SCHEDULER;
+    }
+
+    // Created on first use
+    private static final class VirtualThreads {
+        private static final Scheduler SCHEDULER = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "virtual-threads");
+    }
+}
@@ -0,0 +1,42 @@
+package io;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Either;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of calls in progress, the calls over the limit fail fast instead of queuing.
+ * <p>
+ * Exposes bulkhead.in.flight and bulkhead.rejected, tagged by name.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrentCalls, MeterRegistry registry) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.rejected = Counter.builder("bulkhead.rejected").tag("name", name).register(registry);
+        Gauge.builder("bulkhead.in.flight", inFlight, AtomicInteger::get).tag("name", name).register(registry);
+    }
+
+    /**
+     * Runs the IO if a slot is free, otherwise fails fast with whenFull. The slot is released on completion or cancellation.
+     */
+    public <E, A> IO<E, A> protect(IO<E, A> io, Supplier<E> whenFull) {
+        return IO.fromMonoEither(Mono.defer(() -> {
+            if (inFlight.incrementAndGet() > maxConcurrentCalls) {
+                inFlight.decrementAndGet();
+                rejected.increment();
+                return Mono.just(Either.<E, A>left(whenFull.get()));
+            }
+            return io.unlift().doFinally(__ -> inFlight.decrementAndGet());
+        }));
+    }
+}
@@ -0,0 +1,196 @@
+package io;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Count based circuit breaker.
+ * <ul>
+ *     <li>CLOSED: the outcomes of the last slidingWindowSize calls are kept, once minimumCalls are known and the
+ *     failure rate reaches the threshold the circuit opens</li>
+ *     <li>OPEN: calls fail fast until openDuration has elapsed, then the circuit is half open</li>
+ *     <li>HALF_OPEN: halfOpenCalls trial calls are let through, the circuit closes if they all succeed and opens
+ *     again on the first failure, the other calls fail fast</li>
+ * </ul>
+ * A call fails when the IO fails with an exception or ends with an error matching the failure predicate.
+ * Time is read from the parallel scheduler so that the breaker follows virtual time in tests.
+ * <p>
+ * Exposes circuit.breaker.state (0 closed, 1 open, 2 half open), circuit.breaker.transitions (tagged from / to)
+ * and circuit.breaker.rejected, all tagged by name.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+    private final MeterRegistry registry;
+    private final Counter rejected;
+
+    // guarded by this
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    // numbers the half open periods, so that a trial call only gives its permit back to the period it was taken from
+    private long halfOpenPeriod;
+
+    public CircuitBreaker(String name, int slidingWindowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls, MeterRegistry registry) {
+        this.name = name;
+        this.window = new boolean[slidingWindowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDuration.toMillis();
+        this.halfOpenCalls = halfOpenCalls;
+        this.registry = registry;
+        this.rejected = Counter.builder("circuit.breaker.rejected").tag("name", name).register(registry);
+        Gauge.builder("circuit.breaker.state", this, breaker -> breaker.state().ordinal())
+                .tag("name", name)
+                .register(registry);
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Runs the IO if the circuit lets the call through, otherwise fails fast with whenOpen.
+     */
+    public <E, A> IO<E, A> protect(IO<E, A> io, Predicate<E> isFailure, Supplier<E> whenOpen) {
+        return IO.fromMonoEither(Mono.defer(() -> {
+            Option<Permit> permit = tryAcquire();
+            if (permit.isEmpty()) {
+                rejected.increment();
+                return Mono.just(Either.<E, A>left(whenOpen.get()));
+            }
+            return io.unlift()
+                    .doOnSuccess(either -> onResult(permit.get(), either != null && either.isLeft() && isFailure.test(either.getLeft())))
+                    .doOnError(e -> onResult(permit.get(), true))
+                    .doOnCancel(() -> onCancel(permit.get()));
+        }));
+    }
+
+    /**
+     * halfOpenPeriod is the period the trial permit was taken from, 0 when the call went through a closed circuit.
+     */
+    private record Permit(long halfOpenPeriod) {
+        private static final Permit CLOSED = new Permit(0);
+    }
+
+    private synchronized Option<Permit> tryAcquire() {
+        if (state == State.OPEN && now() - openedAt >= openDurationMillis) {
+            transition(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+            halfOpenPeriod++;
+        }
+        return switch (state) {
+            case CLOSED -> Option.some(Permit.CLOSED);
+            case OPEN -> Option.none();
+            case HALF_OPEN -> {
+                if (halfOpenPermits == 0) {
+                    yield Option.none();
+                }
+                halfOpenPermits--;
+                yield Option.some(new Permit(halfOpenPeriod));
+            }
+        };
+    }
+
+    // A result only counts in the state its permit was taken in: a call started before the circuit opened doesn't
+    // decide a half open period, and a trial call of an earlier period doesn't count in the closed window
+    private synchronized void onResult(Permit permit, boolean failure) {
+        switch (state) {
+            case CLOSED -> {
+                if (permit != Permit.CLOSED) {
+                    return;
+                }
+                record(failure);
+                if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+                    open();
+                }
+            }
+            case HALF_OPEN -> {
+                if (permit.halfOpenPeriod() != halfOpenPeriod) {
+                    return;
+                }
+                if (failure) {
+                    open();
+                } else if (++halfOpenSuccesses == halfOpenCalls) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // a call started before the circuit opened
+            }
+        }
+    }
+
+    // Only a trial call of the current half open period gives its permit back
+    private synchronized void onCancel(Permit permit) {
+        if (state == State.HALF_OPEN && permit.halfOpenPeriod() == halfOpenPeriod) {
+            halfOpenPermits++;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void open() {
+        openedAt = now();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void transition(State to) {
+        Counter.builder("circuit.breaker.transitions")
+                .tag("name", name)
+                .tag("from", state.name())
+                .tag("to", to.name())
+                .register(registry)
+                .increment();
+        state = to;
+    }
+
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+    }
+}
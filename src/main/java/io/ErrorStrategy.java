@@ -0,0 +1,47 @@
+package io;
+
+/**
+ * How parSequence / parTraverse / validate deal with the errors of their branches.
+ * <ul>
+ *     <li>accumulateAll: every branch runs to completion, all the errors are kept</li>
+ *     <li>failFast: the first error (in completion order) ends the whole, the other branches are cancelled</li>
+ *     <li>firstErrors(n): ends after n errors, the other branches are cancelled</li>
+ * </ul>
+ * With failFast and firstErrors, the branches not started yet are never subscribed to and the branches in flight
+ * receive a cancel signal, which goes up to the repository calls. The errors kept are in the order of the branches.
+ */
+public final class ErrorStrategy {
+
+    private static final ErrorStrategy ACCUMULATE_ALL = new ErrorStrategy(Integer.MAX_VALUE);
+    private static final ErrorStrategy FAIL_FAST = new ErrorStrategy(1);
+
+    final int maxErrors;
+
+    private ErrorStrategy(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public static ErrorStrategy accumulateAll() {
+        return ACCUMULATE_ALL;
+    }
+
+    public static ErrorStrategy failFast() {
+        return FAIL_FAST;
+    }
+
+    public static ErrorStrategy firstErrors(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("firstErrors needs at least one error, got " + n);
+        }
+        return n == 1 ? FAIL_FAST : new ErrorStrategy(n);
+    }
+
+    boolean accumulatesAll() {
+        return maxErrors == Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return accumulatesAll() ? "accumulateAll" : maxErrors == 1 ? "failFast" : "firstErrors(" + maxErrors + ")";
+    }
+}
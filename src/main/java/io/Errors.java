@@ -0,0 +1,211 @@
+package io;
+
+import io.vavr.collection.List;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Accumulated errors, in order. Built for the failure path of parZip / parSequence / validate:
+ * <ul>
+ *     <li>a single error is stored inline, without any collection</li>
+ *     <li>errors collected together are stored in one array chunk</li>
+ *     <li>concat and append only add a node on top of the two sides, nothing is copied</li>
+ * </ul>
+ * The vavr List is only built when asked for (toList, equals, toString), and then kept.
+ */
+public final class Errors<E> implements Iterable<E> {
+
+    private static final Errors<?> EMPTY = new Errors<>(null, null, null, null, 0);
+
+    // exactly one of: single (size 1), chunk (a leaf of size > 1), left + right (a concat node), nothing (empty)
+    private final E single;
+    private final Object[] chunk;
+    private final Errors<E> left;
+    private final Errors<E> right;
+    private final int size;
+    private volatile List<E> list;
+
+    private Errors(E single, Object[] chunk, Errors<E> left, Errors<E> right, int size) {
+        this.single = single;
+        this.chunk = chunk;
+        this.left = left;
+        this.right = right;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> Errors<E> empty() {
+        return (Errors<E>) EMPTY;
+    }
+
+    public static <E> Errors<E> of(E error) {
+        return new Errors<>(error, null, null, null, 1);
+    }
+
+    @SafeVarargs
+    public static <E> Errors<E> of(E... errors) {
+        return ofArray(errors.clone(), errors.length);
+    }
+
+    public static <E> Errors<E> ofAll(Iterable<? extends E> errors) {
+        if (errors instanceof Errors<?>) {
+            @SuppressWarnings("unchecked")
+            Errors<E> same = (Errors<E>) errors;
+            return same;
+        }
+        ArrayList<Object> collected = new ArrayList<>();
+        errors.forEach(collected::add);
+        return ofArray(collected.toArray(), collected.size());
+    }
+
+    /**
+     * Takes ownership of the array: the first count elements are the errors, the array must not be modified afterwards.
+     */
+    static <E> Errors<E> ofArray(Object[] errors, int count) {
+        if (count == 0) {
+            return empty();
+        }
+        if (count == 1) {
+            @SuppressWarnings("unchecked")
+            E error = (E) errors[0];
+            return of(error);
+        }
+        Object[] chunk = errors.length == count ? errors : Arrays.copyOf(errors, count);
+        return new Errors<>(null, chunk, null, null, count);
+    }
+
+    public Errors<E> append(E error) {
+        return concat(of(error));
+    }
+
+    public Errors<E> concat(Errors<E> other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+        return new Errors<>(null, null, this, other, this.size + other.size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public E head() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("head of empty Errors");
+        }
+        return iterator().next();
+    }
+
+    public boolean exists(Predicate<? super E> predicate) {
+        for (E error : this) {
+            if (predicate.test(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public <E1> Errors<E1> map(Function<? super E, ? extends E1> function) {
+        if (size == 1) {
+            return of(function.apply(single));
+        }
+        Object[] mapped = new Object[size];
+        int i = 0;
+        for (E error : this) {
+            mapped[i++] = function.apply(error);
+        }
+        return ofArray(mapped, size);
+    }
+
+    public List<E> toList() {
+        List<E> result = list;
+        if (result == null) {
+            result = List.ofAll(this);
+            list = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (right == null && chunk == null) {
+            return isEmpty() ? List.<E>empty().iterator() : List.of(single).iterator();
+        }
+        return new RopeIterator<>(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof Errors<?> errors && toList().equals(errors.toList()));
+    }
+
+    @Override
+    public int hashCode() {
+        return toList().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toList().mkString("Errors(", ", ", ")");
+    }
+
+    // Depth first over the concat nodes with an explicit stack, a long chain of appends doesn't grow the call stack
+    private static final class RopeIterator<E> implements Iterator<E> {
+
+        private final Deque<Errors<E>> pending = new ArrayDeque<>();
+        private Errors<E> leaf;
+        private int index;
+
+        RopeIterator(Errors<E> root) {
+            pending.push(root);
+            advance();
+        }
+
+        private void advance() {
+            leaf = null;
+            index = 0;
+            while (!pending.isEmpty()) {
+                Errors<E> node = pending.pop();
+                if (node.right != null) {
+                    pending.push(node.right);
+                    pending.push(node.left);
+                } else if (!node.isEmpty()) {
+                    leaf = node;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            E next = leaf.chunk == null ? leaf.single : (E) leaf.chunk[index];
+            if (leaf.chunk == null || ++index == leaf.chunk.length) {
+                advance();
+            }
+            return next;
+        }
+    }
+}
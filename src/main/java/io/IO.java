@@ -10,48 +10,89 @@ import io.vavr.Tuple2;
 import io.vavr.Tuple3;
 import io.vavr.Tuple4;
 import io.vavr.Tuple5;
+import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.collection.Seq;
 import io.vavr.control.Either;
 import io.vavr.control.Option;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-import static io.vavr.API.$;
-import static io.vavr.API.Case;
 import static io.vavr.API.Left;
-import static io.vavr.API.List;
-import static io.vavr.API.Match;
-import static io.vavr.API.Right;
-import static io.vavr.API.Seq;
 import static io.vavr.API.Tuple;
-import static io.vavr.Patterns.$Left;
-import static io.vavr.Patterns.$Right;
-import static io.vavr.Patterns.$Tuple2;
 
 public class IO<E, A> {
 
+    // An IO is either backed by a Mono, or "pure" when its outcome is already known.
+    // Combinators on a pure IO are evaluated eagerly and only lifted to a Mono when needed.
     private final Mono<Either<E, A>> underlying;
+    private final Either<E, A> pure;
 
     private IO(Mono<Either<E, A>> underlying) {
         this.underlying = underlying;
+        this.pure = null;
+    }
+
+    private IO(Either<E, A> pure) {
+        this.underlying = null;
+        this.pure = pure;
+    }
+
+    private static <E, A> IO<E, A> pure(Either<E, A> either) {
+        return new IO<>(either);
+    }
+
+    private static <E, A> IO<E, A> evaluate(Supplier<IO<E, A>> computation) {
+        try {
+            return computation.get();
+        } catch (Throwable e) {
+            Exceptions.throwIfJvmFatal(e);
+            return IO.failed(e);
+        }
+    }
+
+    private boolean isPure() {
+        return pure != null;
+    }
+
+    private Mono<Either<E, A>> mono() {
+        return pure != null ? Mono.just(pure) : underlying;
     }
 
     public static <E, A> IO<E, A> succeed(A value) {
-        return new IO<>(Mono.just(Either.right(value)));
+        return pure(Either.right(value));
     }
 
     public static <E, A> IO<E, A> suspend(Supplier<A> supplier) {
         return new IO<>(Mono.fromCallable(() -> Either.right(supplier.get())));
     }
 
+    /**
+     * Like suspend, for a call that blocks: it runs on its own virtual thread, the subscribing thread is not blocked.
+     */
+    public static <E, A> IO<E, A> blocking(Supplier<A> supplier) {
+        return blocking(supplier, BlockingExecution.virtualThreads());
+    }
+
+    public static <E, A> IO<E, A> blocking(Supplier<A> supplier, Scheduler scheduler) {
+        return IO.<E, A>suspend(supplier).subscribeOn(scheduler);
+    }
+
     public static <E, A> IO<E, A> error(E value) {
-        return new IO<>(Mono.just(Either.left(value)));
+        return pure(Either.left(value));
     }
 
     public static <E, A> IO<E, A> failed(Throwable value) {
@@ -78,15 +119,15 @@ public class IO<E, A> {
     }
 
     public static <E, A> IO<E, A> fromEither(Either<E, A> either) {
-        return new IO<>(Mono.just(either));
+        return pure(either);
     }
 
     public static <E, A> IO<E, A> fromOption(Option<A> option, Supplier<E> ifEmpty) {
-        return new IO<>(Mono.just(option.toEither(ifEmpty)));
+        return pure(option.toEither(ifEmpty));
     }
 
     public static <A> IO<Tuple0, A> fromOption(Option<A> option) {
-        return new IO<>(Mono.just(option.toEither(() -> Tuple.empty())));
+        return pure(option.toEither(() -> Tuple.empty()));
     }
 
     public static <E> IO<E, Tuple0> when(Boolean toCheck, Supplier<IO<E, ?>> errorIfTrue) {
@@ -102,51 +143,143 @@ public class IO<E, A> {
     }
 
     public static <E, A> IO<E, Seq<A>> sequence(Seq<IO<E, A>> seq) {
-        return seq.foldLeft(IO.<E, Seq<A>>succeed(List.empty()), (acc, elt) ->
-           acc.flatMap(current -> elt.map(current::append))
-        );
+        return sequence(seq, Queues.XS_BUFFER_SIZE);
+    }
+
+    public static <E, A> IO<E, Seq<A>> sequence(Seq<IO<E, A>> seq, int prefetch) {
+        return traverse(seq, prefetch, Function.identity());
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq) {
+        return parSequence(seq, Queues.SMALL_BUFFER_SIZE);
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq, int concurrency) {
+        return parSequence(seq, concurrency, ErrorStrategy.accumulateAll());
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq, ErrorStrategy strategy) {
+        return parSequence(seq, Queues.SMALL_BUFFER_SIZE, strategy);
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq, int concurrency, ErrorStrategy strategy) {
+        if (seq.forAll(IO::isPure)) {
+            return pure(accumulate(seq.map(io -> io.pure), seq.size(), strategy.maxErrors));
+        }
+        return accumulate(seq.map(IO::mono), concurrency, strategy);
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq, int concurrency, Scheduler scheduler) {
+        return parSequence(seq, concurrency, scheduler, ErrorStrategy.accumulateAll());
+    }
+
+    public static <E, A> IO<Errors<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq, int concurrency, Scheduler scheduler, ErrorStrategy strategy) {
+        if (seq.forAll(IO::isPure)) {
+            return pure(accumulate(seq.map(io -> io.pure), seq.size(), strategy.maxErrors));
+        }
+        return accumulate(seq.map(io -> io.mono().subscribeOn(scheduler)), concurrency, strategy);
     }
 
-    public static <E, A> IO<Seq<E>, Seq<A>> parSequence(Seq<IO<E, A>> seq) {
-        return seq.foldLeft(IO.<Seq<E>, Seq<A>>succeed(List.empty()), (acc, elt) -> {
-                    Mono<Either<Seq<E>, Seq<A>>> rMono = acc.underlying.flatMap( (Either<Seq<E>, Seq<A>> eitherAcc) ->
-                            elt.underlying.map( (Either<E, A> either) -> {
-                                Either<Seq<E>, Seq<A>> res = Match(Tuple(eitherAcc, either)).of(
-                                        Case($Tuple2($Left($()), $Left($())), (Either.Left<Seq<E>, Seq<A>> accL, Either.Left<E, A> l) ->
-                                                Left(accL.getLeft().append(l.getLeft()))
-                                        ),
-                                        Case($Tuple2($Right($()), $Left($())), (accL, l) ->
-                                                Left(List(l.getLeft()))
-                                        ),
-                                        Case($Tuple2($Left($()), $Right($())), (accL, l) ->
-                                                Left(accL.getLeft())
-                                        ),
-                                        Case($Tuple2($Right($()), $Right($())), (Either.Right<Seq<E>, Seq<A>> accR, Either.Right<E, A> r) ->
-                                                Right(accR.get().append(r.get()))
-                                        )
-                                );
-                                return res;
-                            })
-                    );
-                    return new IO<>(rMono);
+    private static <E, A> IO<Errors<E>, Seq<A>> accumulate(Seq<Mono<Either<E, A>>> monos, int concurrency, ErrorStrategy strategy) {
+        if (!strategy.accumulatesAll()) {
+            return accumulateUpTo(monos, concurrency, strategy.maxErrors);
+        }
+        // mergeSequential subscribes to up to `concurrency` sources at once but replays them in input order
+        Mono<Either<Errors<E>, Seq<A>>> rMono = Flux.mergeSequential(monos, concurrency, Queues.XS_BUFFER_SIZE)
+                .collectList()
+                .map(eithers -> accumulate(eithers, eithers.size(), Integer.MAX_VALUE));
+        return new IO<>(rMono);
+    }
+
+    private static <E, A> IO<Errors<E>, Seq<A>> accumulateUpTo(Seq<Mono<Either<E, A>>> monos, int concurrency, int maxErrors) {
+        // Results are taken in completion order so that an error is seen as soon as it happens, whatever its position.
+        // takeUntil cancels the merge once enough errors are in: the pending sources are never subscribed to and
+        // the ones in flight are cancelled.
+        Mono<Either<Errors<E>, Seq<A>>> rMono = Mono.defer(() -> {
+            IndexedResults<E, A> results = new IndexedResults<>(monos.size(), maxErrors);
+            return Flux.fromIterable(monos.zipWithIndex())
+                    .flatMap(indexed -> indexed._1.map(either -> Tuple.of(indexed._2, either)), concurrency, Queues.XS_BUFFER_SIZE)
+                    .takeUntil(result -> results.add(result._1, result._2))
+                    .then(Mono.fromSupplier(results::result));
         });
+        return new IO<>(rMono);
+    }
+
+    private static final class IndexedResults<E, A> {
+
+        private final Object[] results;
+        private final int maxErrors;
+        private int errorCount;
+
+        IndexedResults(int size, int maxErrors) {
+            this.results = new Object[size];
+            this.maxErrors = maxErrors;
+        }
+
+        // true once maxErrors errors are in
+        boolean add(int index, Either<E, A> either) {
+            results[index] = either;
+            return either.isLeft() && ++errorCount == maxErrors;
+        }
+
+        // An empty branch leaves its slot null and is dropped from the result, as with accumulateAll
+        @SuppressWarnings("unchecked")
+        Either<Errors<E>, Seq<A>> result() {
+            if (errorCount == 0) {
+                return Either.right(Iterator.of(results).filter(either -> either != null).map(either -> ((Either<E, A>) either).get()).toList());
+            }
+            Object[] errors = new Object[errorCount];
+            int i = 0;
+            for (Object result : results) {
+                if (result != null && ((Either<E, A>) result).isLeft()) {
+                    errors[i++] = ((Either<E, A>) result).getLeft();
+                }
+            }
+            return Either.left(Errors.ofArray(errors, errorCount));
+        }
     }
 
+    private static <E, A> Either<Errors<E>, Seq<A>> accumulate(Iterable<Either<E, A>> results, int size, int maxErrors) {
+        // The errors go straight into the array backing the Errors, the values are only collected on success
+        Object[] errors = null;
+        int errorCount = 0;
+        for (Either<E, A> result : results) {
+            if (result.isLeft()) {
+                if (errors == null) {
+                    errors = new Object[Math.min(size, maxErrors)];
+                }
+                errors[errorCount++] = result.getLeft();
+                if (errorCount == maxErrors) {
+                    break;
+                }
+            }
+        }
+        if (errorCount > 0) {
+            return Either.left(Errors.ofArray(errors, errorCount));
+        }
+        return Either.right(Iterator.ofAll(results).map(Either::get).toList());
+    }
 
     public static class ValidateBuilder<E> {
 
         private final List<IO<E, Tuple0>> iOs;
+        private final ErrorStrategy strategy;
 
         public ValidateBuilder(List<IO<E, ?>> iOs) {
+            this(iOs, ErrorStrategy.accumulateAll());
+        }
+
+        public ValidateBuilder(List<IO<E, ?>> iOs, ErrorStrategy strategy) {
             this.iOs = iOs.map(io -> io.map(___ -> Tuple.empty()));
+            this.strategy = strategy;
         }
 
-        public <A> IO<Seq<E>, A> andReturn(Supplier<A> res) {
-            return IO.parSequence(this.iOs).map(__ -> res.get());
+        public <A> IO<Errors<E>, A> andReturn(Supplier<A> res) {
+            return IO.parSequence(this.iOs, strategy).map(__ -> res.get());
         }
 
-        public <A> IO<Seq<E>, A> andReturn(A res) {
-            return IO.parSequence(this.iOs).map(__ -> res);
+        public <A> IO<Errors<E>, A> andReturn(A res) {
+            return IO.parSequence(this.iOs, strategy).map(__ -> res);
         }
     }
 
@@ -155,14 +288,83 @@ public class IO<E, A> {
         return new ValidateBuilder<E>(List.of(seq));
     }
 
+    @SafeVarargs
+    public static <E> ValidateBuilder<E> validate(ErrorStrategy strategy, IO<E, ?>... seq) {
+        return new ValidateBuilder<E>(List.of(seq), strategy);
+    }
+
     public static <E, A1, A2> IO<E, Seq<A2>> traverse(Seq<A1> seq, Function<A1, IO<E, A2>> func) {
-        return sequence(seq.map(func));
+        return traverse(seq, Queues.XS_BUFFER_SIZE, func);
+    }
+
+    public static <E, A1, A2> IO<E, Seq<A2>> traverse(Seq<A1> seq, int prefetch, Function<A1, IO<E, A2>> func) {
+        return evaluate(() -> {
+            // Pure results are collected synchronously, the pipeline is only built from the first async element.
+            SequenceBuilder<E, A2> prefix = new SequenceBuilder<>(java.util.List.of());
+            Seq<A1> remaining = seq;
+            while (!remaining.isEmpty() && prefix.error.isEmpty()) {
+                IO<E, A2> io = func.apply(remaining.head());
+                if (!io.isPure()) {
+                    return traverseAsync(io, remaining.tail(), prefetch, func, prefix.values);
+                }
+                prefix.add(io.pure);
+                remaining = remaining.tail();
+            }
+            return pure(prefix.result());
+        });
+    }
+
+    private static <E, A1, A2> IO<E, Seq<A2>> traverseAsync(IO<E, A2> first, Seq<A1> remaining, int prefetch, Function<A1, IO<E, A2>> func, java.util.List<A2> prefix) {
+        // A single concatMap keeps the assembly depth constant whatever the size of seq,
+        // and takeUntil stops subscribing to the next elements once a Left is seen.
+        Mono<Either<E, Seq<A2>>> rMono = Flux.concat(
+                        first.underlying,
+                        Flux.fromIterable(remaining).concatMap(elt -> func.apply(elt).mono(), prefetch)
+                )
+                .takeUntil(Either::isLeft)
+                .collect(() -> new SequenceBuilder<E, A2>(prefix), SequenceBuilder::add)
+                .map(SequenceBuilder::result);
+        return new IO<>(rMono);
+    }
+
+    private static class SequenceBuilder<E, A> {
+
+        private final java.util.List<A> values;
+        private Option<E> error = Option.none();
+
+        SequenceBuilder(java.util.List<A> prefix) {
+            this.values = new ArrayList<>(prefix);
+        }
+
+        void add(Either<E, A> either) {
+            if (either.isLeft()) {
+                error = Option.some(either.getLeft());
+            } else {
+                values.add(either.get());
+            }
+        }
+
+        Either<E, Seq<A>> result() {
+            return error.isDefined() ? Either.left(error.get()) : Either.right(List.ofAll(values));
+        }
     }
 
-    public static <E, A1, A2> IO<Seq<E>, Seq<A2>> parTraverse(Seq<A1> seq, Function<A1, IO<E, A2>> func) {
+    public static <E, A1, A2> IO<Errors<E>, Seq<A2>> parTraverse(Seq<A1> seq, Function<A1, IO<E, A2>> func) {
         return parSequence(seq.map(func));
     }
 
+    public static <E, A1, A2> IO<Errors<E>, Seq<A2>> parTraverse(Seq<A1> seq, int concurrency, Function<A1, IO<E, A2>> func) {
+        return parSequence(seq.map(func), concurrency);
+    }
+
+    public static <E, A1, A2> IO<Errors<E>, Seq<A2>> parTraverse(Seq<A1> seq, int concurrency, Scheduler scheduler, Function<A1, IO<E, A2>> func) {
+        return parSequence(seq.map(func), concurrency, scheduler);
+    }
+
+    public static <E, A1, A2> IO<Errors<E>, Seq<A2>> parTraverse(Seq<A1> seq, int concurrency, ErrorStrategy strategy, Function<A1, IO<E, A2>> func) {
+        return parSequence(seq.map(func), concurrency, strategy);
+    }
+
     public static <E, A1, A2> IO<E, Tuple2<A1, A2>> zip(IO<E, A1> io1, IO<E, A2> io2) {
         return zip(io1, io2, API::Tuple);
     }
@@ -171,71 +373,95 @@ public class IO<E, A> {
         return io1.flatMap(r1 -> io2.map(r2 -> func.apply(r1, r2)));
     }
 
-    public static <E, A1, A2, A> IO<Seq<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, BiFunction<A1, A2, A> func) {
-        return new IO<Seq<E>, A>(io1.underlying.flatMap(either1 ->
-            either1.fold(
-                    err1 -> io2.underlying.map(either2 ->
-                            either2.fold(
-                                    err2 -> Either.left(Seq(err1, err2)),
-                                    ok2 -> Either.left(Seq(err1))
-                            )
-                    ),
-                    ok1 -> io2.underlying.map(either2 ->
-                        either2.fold(
-                            err2 -> Either.left(Seq(err2)),
-                            ok2 ->  Either.right(func.apply(ok1, ok2))
-                        )
-                    )
-            )
-        ));
+    @SuppressWarnings("unchecked")
+    public static <E, A1, A2, A> IO<Errors<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, BiFunction<A1, A2, A> func) {
+        return zipAll(values -> func.apply((A1) values[0], (A2) values[1]), io1, io2);
     }
 
-    public static <E, A1, A2> IO<Seq<E>, Tuple2<A1, A2>> parZip(IO<E, A1> io1, IO<E, A2> io2) {
+    public static <E, A1, A2> IO<Errors<E>, Tuple2<A1, A2>> parZip(IO<E, A1> io1, IO<E, A2> io2) {
         return parZip(io1, io2, API::Tuple);
     }
 
-    public static <E, A1, A2, A3, A> IO<Seq<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, Function3<A1, A2, A3, A> func) {
-        return parZip(parZip(io1, io2), io3.mapError(List::of))
-            .map(t -> func.apply(t._1._1, t._1._2, t._2))
-            .mapError(l -> l.flatMap(i -> i));
+    @SuppressWarnings("unchecked")
+    public static <E, A1, A2, A3, A> IO<Errors<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, Function3<A1, A2, A3, A> func) {
+        return zipAll(values -> func.apply((A1) values[0], (A2) values[1], (A3) values[2]), io1, io2, io3);
     }
 
-    public static <E, A1, A2, A3, A4, A> IO<Seq<E>, A> parZipIO(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, Function3<A1, A2, A3, IO<Seq<E>, A>> func) {
-        return parZip(parZip(io1, io2), io3.mapError(List::of))
-            .mapError(l -> l.flatMap(i -> i))
-            .flatMap(t -> func.apply(t._1._1, t._1._2, t._2));
+    public static <E, A1, A2, A3, A4, A> IO<Errors<E>, A> parZipIO(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, Function3<A1, A2, A3, IO<Errors<E>, A>> func) {
+        return parZip(io1, io2, io3, func).flatMap(Function.identity());
     }
 
-    public static <E, A1, A2, A3, A4> IO<Seq<E>, Tuple4<A1, A2, A3, A4>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4) {
+    public static <E, A1, A2, A3, A4> IO<Errors<E>, Tuple4<A1, A2, A3, A4>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4) {
         return parZip(io1, io2, io3, io4, (r1, r2, r3, r4) -> Tuple(r1, r2, r3, r4));
     }
 
-    public static <E, A1, A2, A3, A4, A> IO<Seq<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, Function4<A1, A2, A3, A4, A> func) {
-        return parZip(parZip(io1, io2, io3), io4.mapError(List::of))
-                .map(t -> func.apply(t._1._1, t._1._2, t._1._3, t._2))
-                .mapError(l -> l.flatMap(i -> i));
+    @SuppressWarnings("unchecked")
+    public static <E, A1, A2, A3, A4, A> IO<Errors<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, Function4<A1, A2, A3, A4, A> func) {
+        return zipAll(values -> func.apply((A1) values[0], (A2) values[1], (A3) values[2], (A4) values[3]), io1, io2, io3, io4);
     }
 
-    public static <E, A1, A2, A3, A4, A5> IO<Seq<E>, Tuple5<A1, A2, A3, A4, A5>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, IO<E, A5> io5) {
+    public static <E, A1, A2, A3, A4, A5> IO<Errors<E>, Tuple5<A1, A2, A3, A4, A5>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, IO<E, A5> io5) {
         return parZip(io1, io2, io3, io4, io5, (r1, r2, r3, r4, r5) -> Tuple(r1, r2, r3, r4, r5));
     }
 
-    public static <E, A1, A2, A3, A4, A5, A> IO<Seq<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, IO<E, A5> io5, Function5<A1, A2, A3, A4, A5, A> func) {
-        return parZip(parZip(io1, io2, io3, io4), io5.mapError(List::of))
-            .map(t -> func.apply(t._1._1, t._1._2, t._1._3, t._1._4, t._2))
-            .mapError(l -> l.flatMap(i -> i));
+    @SuppressWarnings("unchecked")
+    public static <E, A1, A2, A3, A4, A5, A> IO<Errors<E>, A> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, IO<E, A4> io4, IO<E, A5> io5, Function5<A1, A2, A3, A4, A5, A> func) {
+        return zipAll(values -> func.apply((A1) values[0], (A2) values[1], (A3) values[2], (A4) values[3], (A5) values[4]), io1, io2, io3, io4, io5);
     }
 
-    public static <E, A1, A2, A3, A> IO<Seq<E>, A> parZipIO(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, Function3<A1, A2, A3, IO<Seq<E>, A>> func) {
-        return parZip(parZip(io1, io2), io3.mapError(List::of))
-                .mapError(l -> l.flatMap(i -> i))
-                .flatMap(t -> func.apply(t._1._1, t._1._2, t._2));
+    public static <E, A1, A2, A3, A> IO<Errors<E>, A> parZipIO(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3, Function3<A1, A2, A3, IO<Errors<E>, A>> func) {
+        return parZip(io1, io2, io3, func).flatMap(Function.identity());
     }
 
-    public static <E, A1, A2, A3> IO<Seq<E>, Tuple3<A1, A2, A3>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3) {
+    public static <E, A1, A2, A3> IO<Errors<E>, Tuple3<A1, A2, A3>> parZip(IO<E, A1> io1, IO<E, A2> io2, IO<E, A3> io3) {
         return parZip(io1, io2, io3, (r1, r2, r3) -> Tuple(r1, r2, r3));
     }
 
+    // Every arity zips all its branches at once (no nesting), the errors are collected into a single Errors
+    @SafeVarargs
+    private static <E, A> IO<Errors<E>, A> zipAll(Function<Object[], A> func, IO<E, ?>... ios) {
+        boolean allPure = true;
+        for (IO<E, ?> io : ios) {
+            allPure &= io.isPure();
+        }
+        if (allPure) {
+            return evaluate(() -> {
+                Object[] eithers = new Object[ios.length];
+                for (int i = 0; i < ios.length; i++) {
+                    eithers[i] = ios[i].pure;
+                }
+                return pure(zipEithers(eithers, func));
+            });
+        }
+        Mono<?>[] monos = new Mono<?>[ios.length];
+        for (int i = 0; i < ios.length; i++) {
+            monos[i] = ios[i].mono();
+        }
+        return new IO<>(Mono.zip(eithers -> IO.<E, A>zipEithers(eithers, func), monos));
+    }
+
+    // Replaces the eithers by their values in place, the array is never shared
+    @SuppressWarnings("unchecked")
+    private static <E, A> Either<Errors<E>, A> zipEithers(Object[] eithers, Function<Object[], A> func) {
+        Object[] errors = null;
+        int errorCount = 0;
+        for (int i = 0; i < eithers.length; i++) {
+            Either<E, ?> either = (Either<E, ?>) eithers[i];
+            if (either.isLeft()) {
+                if (errors == null) {
+                    errors = new Object[eithers.length];
+                }
+                errors[errorCount++] = either.getLeft();
+            } else {
+                eithers[i] = either.get();
+            }
+        }
+        if (errorCount > 0) {
+            return Either.left(Errors.ofArray(errors, errorCount));
+        }
+        return Either.right(func.apply(eithers));
+    }
+
     public IO<E, Tuple0> then() {
         return this.map(__ -> Tuple.empty());
     }
@@ -244,25 +470,149 @@ public class IO<E, A> {
         return this.mapError(e -> (E1)e);
     }
 
+    public IO<E, A> subscribeOn(Scheduler scheduler) {
+        if (isPure()) {
+            return this;
+        }
+        return new IO<>(this.underlying.subscribeOn(scheduler));
+    }
+
+    /**
+     * Turns a result arriving later than the timeout into the error.
+     */
+    public IO<E, A> timeout(Duration timeout, Supplier<E> onTimeout) {
+        if (isPure()) {
+            return this;
+        }
+        return new IO<>(this.underlying.timeout(timeout, Mono.fromSupplier(() -> Either.left(onTimeout.get()))));
+    }
+
+    /**
+     * Resubscribes according to the policy (e.g. Retry.backoff(3, Duration.ofMillis(50)).jitter(0.5)) when the IO failed
+     * with an exception. A Left is a business result and is never retried.
+     */
+    public IO<E, A> retry(Retry policy) {
+        if (isPure()) {
+            return this;
+        }
+        return new IO<>(this.underlying.retryWhen(policy));
+    }
+
+    public IO<E, A> hedge(Duration delay) {
+        return hedge(() -> delay);
+    }
+
+    /**
+     * Subscribes a second time if there is no result after the delay and keeps the first answer, the other one is cancelled.
+     * An exception doesn't beat a later answer of the other copy: the IO fails once both copies failed, with the
+     * exception of the first one, or at once if the first one fails before the delay.
+     * The underlying computation must be lazy (e.g. Mono.defer) and safe to run twice.
+     */
+    public IO<E, A> hedge(Supplier<Duration> delay) {
+        if (isPure()) {
+            return this;
+        }
+        // An empty copy is an answer too, firstWithValue would count it as a failure
+        Mono<Option<Either<E, A>>> copy = this.underlying.map(Option::some).defaultIfEmpty(Option.none());
+        return new IO<>(Mono.defer(() -> {
+                    Sinks.Empty<Void> failedBeforeTheDelay = Sinks.empty();
+                    Mono<Option<Either<E, A>>> first = copy.doOnError(failedBeforeTheDelay::tryEmitError);
+                    Mono<Option<Either<E, A>>> second = Mono.firstWithSignal(Mono.delay(delay.get()), failedBeforeTheDelay.asMono()).then(copy);
+                    return Mono.firstWithValue(first, second);
+                })
+                .onErrorMap(NoSuchElementException.class, e -> Exceptions.unwrapMultiple(e.getCause()).stream().findFirst().orElse(e))
+                .flatMap(answer -> Mono.justOrEmpty(answer.toJavaOptional())));
+    }
+
+    /**
+     * Records the latency (from subscription) and the outcome of this IO in the stage meters, at each subscription.
+     * A pure IO is already computed, its outcome is recorded with a zero latency: use timed to measure its computation.
+     * A pure IO is measured at assembly time, once, however many times it is subscribed to: the meters count the
+     * computations, not the subscriptions.
+     */
+    public IO<E, A> metrics(IOMetrics metrics) {
+        return metrics(metrics, 0L);
+    }
+
+    /**
+     * Like metrics, the latency also includes the time spent building the IO, which is all of it for a pure IO.
+     * The stage is built and, if pure, measured when timed is called (see metrics).
+     */
+    public static <E, A> IO<E, A> timed(IOMetrics metrics, Supplier<IO<E, A>> stage) {
+        long start = System.nanoTime();
+        IO<E, A> io = evaluate(stage);
+        return io.metrics(metrics, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs this IO in a span named after the stage, child of the current span if the pipeline is traced (see {@link Tracing}).
+     * A pure IO is already computed and is not traced: use the static traced to trace its computation.
+     */
+    public IO<E, A> traced(String name) {
+        if (isPure()) {
+            return this;
+        }
+        return new IO<>(Tracing.span(name, () -> this.underlying));
+    }
+
+    /**
+     * Like traced, the span also includes building the IO, which is all of it for a pure IO.
+     * The stage is built at subscription, the result is never pure: see ifTraced to only pay for it when traced.
+     */
+    public static <E, A> IO<E, A> traced(String name, Supplier<IO<E, A>> stage) {
+        return new IO<>(Tracing.span(name, () -> evaluate(stage).mono()));
+    }
+
+    /**
+     * Builds traced if the pipeline is traced, untraced otherwise, at subscription: the Context is read once and an
+     * untraced stage made of pure IOs is still evaluated eagerly.
+     */
+    public static <E, A> IO<E, A> ifTraced(Supplier<IO<E, A>> traced, Supplier<IO<E, A>> untraced) {
+        return new IO<>(Mono.deferContextual(context -> evaluate(Tracing.isTraced(context) ? traced : untraced).mono()));
+    }
+
+    private IO<E, A> metrics(IOMetrics metrics, long buildNanos) {
+        if (isPure()) {
+            metrics.record(pure, buildNanos);
+            return this;
+        }
+        return new IO<>(Mono.defer(() -> {
+            long start = System.nanoTime();
+            return this.underlying
+                    .doOnSuccess(either -> metrics.record(either, buildNanos + System.nanoTime() - start))
+                    .doOnError(e -> metrics.recordException(buildNanos + System.nanoTime() - start))
+                    .doOnCancel(() -> metrics.recordCancelled(buildNanos + System.nanoTime() - start));
+        }));
+    }
+
     public <A1> IO<E, A1> map(Function<A, A1> function) {
+        if (isPure()) {
+            return evaluate(() -> pure(pure.map(function)));
+        }
         return new IO<>(this.underlying.map(either -> either.map(function)));
     }
 
     public <A1> IO<E, A1> flatMap(Function<A, IO<E, A1>> function) {
+        if (isPure()) {
+            return evaluate(() -> pure.fold(IO::error, function));
+        }
         return new IO<>(this.underlying.flatMap(either ->
                 either.fold(
                         err -> Mono.just(Either.left(err)),
-                        ok -> function.apply(ok).underlying
+                        ok -> function.apply(ok).mono()
                 )
         ));
     }
 
     public <E1> IO<E1, A> mapError(Function<E, E1> function) {
+        if (isPure()) {
+            return evaluate(() -> pure(pure.mapLeft(function)));
+        }
         return new IO<>(this.underlying.map(either -> either.mapLeft(function)));
     }
 
     public IO<E, A> doOnSuccess(Function<A, Mono<Tuple0>> consumer) {
-        return new IO<>(this.underlying.flatMap(either ->
+        return new IO<>(this.mono().flatMap(either ->
             either.fold(
                     err -> Mono.just(Either.left(err)),
                     ok ->  consumer.apply(ok).map(__  -> Either.right(ok))
@@ -271,7 +621,7 @@ public class IO<E, A> {
     }
 
     public IO<E, A> doOnError(Function<E, Mono<Tuple0>> consumer) {
-        return new IO<>(this.underlying.flatMap(either ->
+        return new IO<>(this.mono().flatMap(either ->
             either.fold(
                     err -> consumer.apply(err).map(__ -> Either.left(err)),
                     ok -> Mono.just(Either.right(ok))
@@ -280,24 +630,30 @@ public class IO<E, A> {
     }
 
     public  IO<E, A> onErrorReturn(A recover) {
+        if (isPure()) {
+            return pure(Either.right(pure.getOrElse(recover)));
+        }
         return new IO<>(this.underlying.map(either ->
             Either.right(either.getOrElse(recover))
         ));
     }
 
     public <T> Mono<T> fold(Function<E, T> handleError, Function<A, T> handleSuccess) {
-        return underlying.map(either -> either.fold(handleError, handleSuccess));
+        return mono().map(either -> either.fold(handleError, handleSuccess));
     }
 
     public <T> Mono<T> foldMono(Function<E, Mono<T>> handleError, Function<A, Mono<T>> handleSuccess) {
-        return underlying.flatMap(either -> either.fold(handleError, handleSuccess));
+        return mono().flatMap(either -> either.fold(handleError, handleSuccess));
     }
 
     public Mono<Either<E, A>> unlift() {
-        return underlying;
+        return mono();
     }
 
     public IO<Throwable, Either<E, A>> attempt() {
+        if (isPure()) {
+            return pure(Either.right(pure));
+        }
         return new IO<>(underlying
                 .map(either -> Either.<Throwable, Either<E, A>>right(either))
                 .onErrorResume(Throwable.class, e -> Mono.just(Either.left(e)))
@@ -305,35 +661,55 @@ public class IO<E, A> {
     }
 
     public IO<E, A> failureToError(Function<Throwable, E> recover) {
+        if (isPure()) {
+            return this;
+        }
         return new IO<>(underlying.onErrorResume(e -> Mono.just(Left(recover.apply(e)))));
     }
 
     public <T extends Throwable> IO<E, A> failureToError(Class<T> clazz, Function<T, E> recover) {
+        if (isPure()) {
+            return this;
+        }
         return new IO<>(underlying.onErrorResume(clazz, e -> Mono.just(Left(recover.apply(e)))));
     }
 
     public IO<E, A> failureToError(Predicate<Throwable> test, Function<Throwable, E> recover) {
+        if (isPure()) {
+            return this;
+        }
         return new IO<>(underlying.onErrorResume(test, e -> Mono.just(Left(recover.apply(e)))));
     }
 
     public Either<E, A> block() {
+        if (isPure()) {
+            return pure;
+        }
         return underlying.block();
     }
 
     public Either<E, A> block(Duration timeout) {
+        if (isPure()) {
+            return pure;
+        }
         return underlying.block(timeout);
     }
 
     public IO<E, A> filter(Predicate<A> predicate, Supplier<E> onInvalidPredicate){
-        return new IO<E,A>(this.underlying.map(either ->
-            either.flatMap( ok -> {
-                if(predicate.test(ok)){
-                    return Either.right(ok);
-                } else {
-                    return Either.left(onInvalidPredicate.get());
-                }
-            })
-        ));
+        if (isPure()) {
+            return evaluate(() -> pure(filterEither(pure, predicate, onInvalidPredicate)));
+        }
+        return new IO<E,A>(this.underlying.map(either -> filterEither(either, predicate, onInvalidPredicate)));
+    }
+
+    private static <E, A> Either<E, A> filterEither(Either<E, A> either, Predicate<A> predicate, Supplier<E> onInvalidPredicate) {
+        return either.flatMap( ok -> {
+            if(predicate.test(ok)){
+                return Either.right(ok);
+            } else {
+                return Either.left(onInvalidPredicate.get());
+            }
+        });
     }
 
 
@@ -350,6 +726,9 @@ public class IO<E, A> {
     }
 
     public IO<A,E> swap(){
+        if (isPure()) {
+            return pure(pure.swap());
+        }
         return new IO<A,E>(this.underlying.map( either -> either.swap()));
     }
 }
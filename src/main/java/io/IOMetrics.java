@@ -0,0 +1,120 @@
+package io;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of one named stage, see {@link IO#metrics(IOMetrics)} and {@link IO#timed(IOMetrics, java.util.function.Supplier)}.
+ * <ul>
+ *     <li>io.stage: latency histogram (and p95) tagged by stage and outcome (success, left, exception or cancelled,
+ *     the latency of a cancelled call being the time until its cancellation)</li>
+ *     <li>io.stage.errors: count of Left outcomes tagged by stage and the simple name of the error class</li>
+ * </ul>
+ * Meters are resolved once per stage (and per error class), create one instance per stage and reuse it.
+ */
+public final class IOMetrics {
+
+    private static final long P95_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry registry;
+    private final String stage;
+    private final Timer success;
+    private final Timer left;
+    private final Timer exception;
+    private final Timer cancelled;
+    private final ConcurrentMap<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+    private volatile long p95Nanos;
+    private volatile long p95ComputedAt = System.nanoTime() - P95_REFRESH_NANOS;
+
+    private IOMetrics(MeterRegistry registry, String stage) {
+        this.registry = registry;
+        this.stage = stage;
+        this.success = timer("success");
+        this.left = timer("left");
+        this.exception = timer("exception");
+        this.cancelled = timer("cancelled");
+    }
+
+    public static IOMetrics of(MeterRegistry registry, String stage) {
+        return new IOMetrics(registry, stage);
+    }
+
+    /**
+     * The 95th percentile of the latencies of the successful and of the cancelled calls, at the precision of the
+     * histogram buckets, recomputed at most once per second. A cancelled call (e.g. the loser of a hedge) lasted at
+     * least until its cancellation: leaving it out would bias the percentile down.
+     * Empty until something was recorded or if the registry keeps no data.
+     */
+    public Option<Duration> p95() {
+        long now = System.nanoTime();
+        if (now - p95ComputedAt >= P95_REFRESH_NANOS) {
+            p95ComputedAt = now;
+            p95Nanos = percentileNanos(0.95, success.takeSnapshot(), cancelled.takeSnapshot());
+        }
+        long nanos = p95Nanos;
+        return nanos > 0 ? Option.some(Duration.ofNanos(nanos)) : Option.none();
+    }
+
+    // The timers of a stage share their histogram buckets, the counts of which are cumulative
+    private static long percentileNanos(double percentile, HistogramSnapshot first, HistogramSnapshot second) {
+        CountAtBucket[] firstCounts = first.histogramCounts();
+        CountAtBucket[] secondCounts = second.histogramCounts();
+        int last = firstCounts.length - 1;
+        if (last < 0 || secondCounts.length != firstCounts.length) {
+            return 0;
+        }
+        double total = firstCounts[last].count() + secondCounts[last].count();
+        for (int i = 0; i <= last && total > 0; i++) {
+            if (firstCounts[i].count() + secondCounts[i].count() >= percentile * total) {
+                return (long) firstCounts[i].bucket(TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    void record(Either<?, ?> result, long nanos) {
+        if (result == null) {
+            return;
+        }
+        if (result.isRight()) {
+            success.record(nanos, TimeUnit.NANOSECONDS);
+        } else {
+            left.record(nanos, TimeUnit.NANOSECONDS);
+            errors.computeIfAbsent(result.getLeft().getClass(), this::counter).increment();
+        }
+    }
+
+    void recordException(long nanos) {
+        exception.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordCancelled(long nanos) {
+        cancelled.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("io.stage")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.95)
+                .register(registry);
+    }
+
+    private Counter counter(Class<?> errorClass) {
+        return Counter.builder("io.stage.errors")
+                .tag("stage", stage)
+                .tag("type", errorClass.getSimpleName())
+                .register(registry);
+    }
+}
@@ -0,0 +1,188 @@
+package io;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Seq;
+import io.vavr.control.Either;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A stream of results, each one being a value or an error: the multi valued counterpart of {@link IO}.
+ * <p>
+ * Nothing is collected unless asked for: a stream built with fromFlux / traverse and consumed with toFlux or values
+ * goes through in constant memory. An error doesn't stop the stream, the error policy is chosen by the consumer:
+ * <ul>
+ *     <li>fail fast: failFast() ends the stream after the first error, collect() keeps the values or the first error</li>
+ *     <li>accumulate: collectAccumulating() keeps the values or all the errors</li>
+ *     <li>skip and collect: values(onError) streams the values and hands the errors over, collectSkipping() keeps both</li>
+ * </ul>
+ */
+public class IOStream<E, A> {
+
+    private final Flux<Either<E, A>> underlying;
+
+    private IOStream(Flux<Either<E, A>> underlying) {
+        this.underlying = underlying;
+    }
+
+    public static <E, A> IOStream<E, A> fromFluxEither(Flux<Either<E, A>> flux) {
+        return new IOStream<>(flux);
+    }
+
+    public static <E, A> IOStream<E, A> fromFlux(Flux<A> flux) {
+        return new IOStream<>(flux.map(Either::right));
+    }
+
+    public static <E, A> IOStream<E, A> fromIterable(Iterable<A> values) {
+        return fromFlux(Flux.fromIterable(values));
+    }
+
+    public static <E, A> IOStream<E, A> fromIO(IO<E, A> io) {
+        return new IOStream<>(io.unlift().flux());
+    }
+
+    /**
+     * Streaming version of IO.traverse: one element at a time, results emitted as they come.
+     */
+    public static <E, A1, A2> IOStream<E, A2> traverse(Iterable<A1> values, Function<A1, IO<E, A2>> func) {
+        return IOStream.<E, A1>fromIterable(values).flatMap(func);
+    }
+
+    public <A1> IOStream<E, A1> map(Function<A, A1> function) {
+        return new IOStream<>(underlying.map(either -> either.map(function)));
+    }
+
+    public <E1> IOStream<E1, A> mapError(Function<E, E1> function) {
+        return new IOStream<>(underlying.map(either -> either.mapLeft(function)));
+    }
+
+    /**
+     * Runs the IO for each value, one at a time. Errors already in the stream are passed through.
+     */
+    public <A1> IOStream<E, A1> flatMap(Function<A, IO<E, A1>> function) {
+        return new IOStream<>(underlying.concatMap(either -> IOStream.<E, A, A1>apply(either, function)));
+    }
+
+    /**
+     * Runs up to concurrency IOs at once, results are emitted in the order of the stream.
+     */
+    public <A1> IOStream<E, A1> parMapOrdered(int concurrency, Function<A, IO<E, A1>> function) {
+        return new IOStream<>(underlying.flatMapSequential(either -> IOStream.<E, A, A1>apply(either, function), concurrency));
+    }
+
+    /**
+     * Runs up to concurrency IOs at once, results are emitted as soon as they are available.
+     */
+    public <A1> IOStream<E, A1> parMapUnordered(int concurrency, Function<A, IO<E, A1>> function) {
+        return new IOStream<>(underlying.flatMap(either -> IOStream.<E, A, A1>apply(either, function), concurrency));
+    }
+
+    private static <E, A, A1> Mono<Either<E, A1>> apply(Either<E, A> either, Function<A, IO<E, A1>> function) {
+        return either.fold(
+                err -> Mono.just(Either.left(err)),
+                ok -> function.apply(ok).unlift()
+        );
+    }
+
+    /**
+     * Groups the values by batches of at most maxSize, a batch is emitted when full or maxWait after its first value.
+     * Errors are emitted on their own, right after the values received before them.
+     */
+    public IOStream<E, Seq<A>> batch(int maxSize, Duration maxWait) {
+        return new IOStream<>(underlying
+                .bufferTimeout(maxSize, maxWait)
+                .concatMapIterable(IOStream::splitBatch));
+    }
+
+    private static <E, A> java.util.List<Either<E, Seq<A>>> splitBatch(java.util.List<Either<E, A>> buffer) {
+        java.util.List<Either<E, Seq<A>>> result = new ArrayList<>();
+        java.util.List<A> values = new ArrayList<>(buffer.size());
+        for (Either<E, A> either : buffer) {
+            if (either.isLeft()) {
+                if (!values.isEmpty()) {
+                    result.add(Either.right(List.ofAll(values)));
+                    values.clear();
+                }
+                result.add(Either.left(either.getLeft()));
+            } else {
+                values.add(either.get());
+            }
+        }
+        if (!values.isEmpty()) {
+            result.add(Either.right(List.ofAll(values)));
+        }
+        return result;
+    }
+
+    /**
+     * Ends the stream after the first error, which is emitted.
+     */
+    public IOStream<E, A> failFast() {
+        return new IOStream<>(underlying.takeUntil(Either::isLeft));
+    }
+
+    public Flux<Either<E, A>> toFlux() {
+        return underlying;
+    }
+
+    /**
+     * Streams the values, errors are handed over to onError and skipped.
+     */
+    public Flux<A> values(Consumer<E> onError) {
+        return underlying.handle((either, sink) -> {
+            if (either.isLeft()) {
+                onError.accept(either.getLeft());
+            } else {
+                sink.next(either.get());
+            }
+        });
+    }
+
+    /**
+     * All the values, or the first error. The stream is cancelled on the first error.
+     */
+    public IO<E, Seq<A>> collect() {
+        return IO.fromMonoEither(underlying
+                .takeUntil(Either::isLeft)
+                .collectList()
+                .map(eithers -> {
+                    Either<E, A> last = eithers.isEmpty() ? null : eithers.get(eithers.size() - 1);
+                    if (last != null && last.isLeft()) {
+                        return Either.<E, Seq<A>>left(last.getLeft());
+                    }
+                    return Either.<E, Seq<A>>right(List.ofAll(eithers).map(Either::get));
+                }));
+    }
+
+    /**
+     * All the values, or all the errors. Once an error is found, the values are no longer kept.
+     */
+    public IO<Errors<E>, Seq<A>> collectAccumulating() {
+        return IO.fromMonoEither(underlying
+                .reduce(Either.<Errors<E>, List<A>>right(List.empty()), (acc, either) -> acc.fold(
+                        errors -> Either.<Errors<E>, List<A>>left(either.isLeft() ? errors.append(either.getLeft()) : errors),
+                        values -> either.isLeft()
+                                ? Either.<Errors<E>, List<A>>left(Errors.of(either.getLeft()))
+                                : Either.<Errors<E>, List<A>>right(values.prepend(either.get()))
+                ))
+                .map(result -> result.<Seq<A>>map(List::reverse)));
+    }
+
+    /**
+     * The values and the errors, separately.
+     */
+    public Mono<Tuple2<Seq<A>, Errors<E>>> collectSkipping() {
+        return underlying
+                .reduce(Tuple.<List<A>, Errors<E>>of(List.empty(), Errors.empty()), (acc, either) -> either.isLeft()
+                        ? acc.map2(errors -> errors.append(either.getLeft()))
+                        : acc.map1(values -> values.prepend(either.get())))
+                .map(acc -> Tuple.<Seq<A>, Errors<E>>of(acc._1.reverse(), acc._2));
+    }
+}
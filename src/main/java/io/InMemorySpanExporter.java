@@ -0,0 +1,45 @@
+package io;
+
+import io.vavr.collection.List;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the last finished spans in memory (up to capacity, the oldest are dropped), for tests and for looking at
+ * a few traces by hand.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void export(Span span) {
+        spans.add(span);
+        if (size.incrementAndGet() > capacity && spans.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * The spans kept, in the order they finished.
+     */
+    public List<Span> spans() {
+        return List.ofAll(spans);
+    }
+
+    public List<Span> spans(String traceId) {
+        return spans().filter(span -> span.traceId().equals(traceId));
+    }
+
+    public void clear() {
+        spans.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,15 @@
+package io;
+
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A finished span. attributes holds the outcome (success, left, exception or cancelled) and, for a left or an
+ * exception, error.type: the simple name of the error class.
+ */
+public record Span(String traceId, String spanId, Option<String> parentSpanId, String name,
+                   Instant start, Duration duration, Map<String, String> attributes) {
+}
@@ -0,0 +1,12 @@
+package io;
+
+/**
+ * Receives the spans as they finish, on the thread that finished them: must not block.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    SpanExporter NONE = span -> {};
+
+    void export(Span span);
+}
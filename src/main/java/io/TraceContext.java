@@ -0,0 +1,57 @@
+package io;
+
+import io.vavr.control.Option;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The current span of a trace, carried by the Reactor Context (under TraceContext.class) of a traced pipeline.
+ * Ids follow the W3C trace context format: 32 hex chars for the trace, 16 for a span.
+ */
+public record TraceContext(String traceId, String spanId, SpanExporter exporter) {
+
+    public static TraceContext newTrace(SpanExporter exporter) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TraceContext(hex(random.nextLong()) + hex(random.nextLong()), newSpanId(), exporter);
+    }
+
+    /**
+     * The caller's span, and whether the caller records the trace (the sampled flag).
+     */
+    public record RemoteParent(TraceContext span, boolean sampled) {
+    }
+
+    /**
+     * Continues the trace of a W3C traceparent header (version-traceid-parentid-flags), empty if it is not valid.
+     */
+    public static Option<RemoteParent> fromTraceparent(String traceparent, SpanExporter exporter) {
+        String[] parts = traceparent.split("-");
+        if (parts.length != 4 || parts[1].length() != 32 || parts[2].length() != 16 || parts[3].length() != 2
+                || !isHex(parts[1]) || !isHex(parts[2]) || !isHex(parts[3])) {
+            return Option.none();
+        }
+        boolean sampled = (Integer.parseInt(parts[3], 16) & 0x01) != 0;
+        return Option.some(new RemoteParent(new TraceContext(parts[1], parts[2], exporter), sampled));
+    }
+
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    public TraceContext child() {
+        return new TraceContext(traceId, newSpanId(), exporter);
+    }
+
+    private static String newSpanId() {
+        return hex(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static boolean isHex(String value) {
+        return value.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+}
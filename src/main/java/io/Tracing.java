@@ -0,0 +1,69 @@
+package io;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spans around Monos, see {@link IO#traced(String)}, {@link IO#traced(String, Supplier)} and {@link IO#ifTraced(Supplier, Supplier)}.
+ * <p>
+ * A span is the child of the TraceContext found in the Reactor Context, and is itself put in the context of the
+ * Mono it wraps. Without a TraceContext nothing is recorded: whether a pipeline is traced is decided once,
+ * by the code that starts the trace (see {@link #trace(String, TraceContext, Option, Mono)}).
+ */
+public final class Tracing {
+
+    private static final Map<String, String> SUCCESS = HashMap.of("outcome", "success");
+    private static final Map<String, String> CANCELLED = HashMap.of("outcome", "cancelled");
+
+    private Tracing() {
+    }
+
+    /**
+     * Runs the mono in the span, the first span of the pipeline: a new trace or the child of a remote parent.
+     */
+    public static <T> Mono<T> trace(String name, TraceContext span, Option<String> parentSpanId, Mono<T> mono) {
+        return Mono.defer(() -> run(name, span, parentSpanId, mono, __ -> SUCCESS));
+    }
+
+    static boolean isTraced(ContextView context) {
+        return context.hasKey(TraceContext.class);
+    }
+
+    static <E, A> Mono<Either<E, A>> span(String name, Supplier<Mono<Either<E, A>>> mono) {
+        return Mono.deferContextual(context -> context.<TraceContext>getOrEmpty(TraceContext.class)
+                .map(parent -> run(name, parent.child(), Option.some(parent.spanId()), mono.get(), Tracing::outcome))
+                .orElseGet(mono));
+    }
+
+    private static <T> Mono<T> run(String name, TraceContext span, Option<String> parentSpanId, Mono<T> mono, Function<T, Map<String, String>> outcome) {
+        Instant start = Instant.now();
+        long startNanos = System.nanoTime();
+        return mono
+                .doOnSuccess(value -> end(name, span, parentSpanId, start, startNanos, value == null ? SUCCESS : outcome.apply(value)))
+                .doOnError(e -> end(name, span, parentSpanId, start, startNanos, failure("exception", e)))
+                .doOnCancel(() -> end(name, span, parentSpanId, start, startNanos, CANCELLED))
+                .contextWrite(context -> context.put(TraceContext.class, span));
+    }
+
+    private static void end(String name, TraceContext span, Option<String> parentSpanId, Instant start, long startNanos, Map<String, String> attributes) {
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+        span.exporter().export(new Span(span.traceId(), span.spanId(), parentSpanId, name, start, duration, attributes));
+    }
+
+    private static Map<String, String> outcome(Either<?, ?> either) {
+        return either.isRight() ? SUCCESS : failure("left", either.getLeft());
+    }
+
+    private static Map<String, String> failure(String outcome, Object error) {
+        return HashMap.of("outcome", outcome, "error.type", error.getClass().getSimpleName());
+    }
+}
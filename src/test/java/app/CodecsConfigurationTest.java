@@ -0,0 +1,98 @@
+package app;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.weakness.Weakness;
+import app.service.FindHelpService.HelpResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vavr.collection.List;
+import io.vavr.jackson.datatype.VavrModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A HelpResult encoded in CBOR or Smile by the server codecs decodes to the same tree as its JSON.
+ */
+class CodecsConfigurationTest {
+
+    private static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final HelpResult result = HelpResult.builder()
+            .hero(Superhero.builder()
+                    .id("1")
+                    .name("Superman")
+                    .isAvailable(true)
+                    .abilities(List.of(Ability.Fly, Ability.Strength))
+                    .weaknesses(List.of(Weakness.Cryptonic))
+                    .build())
+            .matchingAbilities(List.of(Ability.Fly))
+            .build();
+
+    @Test
+    void cborRoundTrip() {
+        assertEquals(json(), roundTrip(APPLICATION_CBOR));
+    }
+
+    @Test
+    void smileRoundTrip() {
+        assertEquals(json(), roundTrip(CodecsConfiguration.APPLICATION_SMILE));
+    }
+
+    @Test
+    void smileReplacesTheDefaultCodec() {
+        ServerCodecConfigurer configurer = configurer();
+        assertEquals(1, configurer.getWriters().stream().filter(writer -> writer.getWritableMediaTypes().contains(CodecsConfiguration.APPLICATION_SMILE)).count());
+        assertEquals(1, configurer.getReaders().stream().filter(reader -> reader.getReadableMediaTypes().contains(CodecsConfiguration.APPLICATION_SMILE)).count());
+    }
+
+    private JsonNode json() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().modules(new VavrModule()).build();
+        return mapper.valueToTree(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonNode roundTrip(MediaType mediaType) {
+        ServerCodecConfigurer configurer = configurer();
+        Encoder<HelpResult> encoder = (Encoder<HelpResult>) configurer.getWriters().stream()
+                .filter(writer -> writer instanceof EncoderHttpMessageWriter && writer.canWrite(ResolvableType.forClass(HelpResult.class), mediaType))
+                .map(writer -> ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .findFirst()
+                .orElseThrow();
+        Decoder<JsonNode> decoder = (Decoder<JsonNode>) configurer.getReaders().stream()
+                .filter(reader -> reader instanceof DecoderHttpMessageReader && reader.canRead(ResolvableType.forClass(JsonNode.class), mediaType))
+                .map(reader -> ((DecoderHttpMessageReader<?>) reader).getDecoder())
+                .findFirst()
+                .orElseThrow();
+        return decoder.decodeToMono(
+                encoder.encode(Mono.just(result), DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(HelpResult.class), mediaType, Collections.emptyMap()),
+                ResolvableType.forClass(JsonNode.class), mediaType, Collections.emptyMap()
+        ).block();
+    }
+
+    // Boot's Jackson2ObjectMapperBuilder is a prototype bean with the application modules registered
+    private static ServerCodecConfigurer configurer() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(Jackson2ObjectMapperBuilder.class, () -> Jackson2ObjectMapperBuilder.json().modules(new VavrModule()),
+                definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+        context.refresh();
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        new CodecsConfiguration(context.getBeanProvider(Jackson2ObjectMapperBuilder.class)).configureHttpMessageCodecs(configurer);
+        return configurer;
+    }
+}
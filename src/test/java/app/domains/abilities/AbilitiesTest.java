@@ -0,0 +1,67 @@
+package app.domains.abilities;
+
+import app.domains.abilities.AbilitiesError.AbilityUnmatch;
+import app.domains.superheroes.Superhero;
+import app.entities.Problem;
+import io.IO;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bitmask matching answers like the former list based implementation, kept here as the reference,
+ * for any abilities (duplicates and order included) and any problem.
+ */
+class AbilitiesTest {
+
+    private static final Map<Problem, List<Ability>> REFERENCE_RULES = HashMap.of(
+            Problem.BanditInTown, List.of(Ability.DistanceFight, Ability.MeleeFight, Ability.MidDistanceFight, Ability.IronBody),
+            Problem.CarAccident, List.of(Ability.Fly, Ability.Strength),
+            Problem.FellIntoWater, List.of(Ability.Dive),
+            Problem.SuperVilain, List.of(Ability.LazerEyes, Ability.IronBody, Ability.ElasticBody)
+    );
+
+    private final Abilities abilities = new Abilities();
+
+    private static IO<AbilityUnmatch, List<Ability>> referenceCheckAbilities(Superhero superhero, Problem problem) {
+        List<Ability> requiredAbilities = REFERENCE_RULES.getOrElse(problem, List.empty());
+        List<Ability> usableAbilities = superhero.abilities.filter(requiredAbilities::contains);
+        if (usableAbilities.isEmpty()) {
+            return IO.error(new AbilityUnmatch());
+        } else {
+            return IO.succeed(usableAbilities);
+        }
+    }
+
+    private static Superhero hero(java.util.List<Ability> abilities) {
+        return Superhero.builder()
+                .id("hero")
+                .name("hero")
+                .isAvailable(true)
+                .abilities(List.ofAll(abilities))
+                .weaknesses(List.empty())
+                .build();
+    }
+
+    @Property
+    void checkAbilitiesMatchesTheReference(@ForAll java.util.List<Ability> heroAbilities, @ForAll Problem problem) {
+        Superhero superhero = hero(heroAbilities);
+        assertEquals(referenceCheckAbilities(superhero, problem).block(), abilities.checkAbilities(superhero, problem).block());
+    }
+
+    @Property
+    void countMatchingAbilitiesCountsTheDistinctMatchingAbilities(@ForAll java.util.List<Ability> heroAbilities, @ForAll Problem problem) {
+        Superhero superhero = hero(heroAbilities);
+        int expected = referenceCheckAbilities(superhero, problem).block().map(List::distinct).map(List::size).getOrElse(0);
+        assertEquals(expected, abilities.countMatchingAbilities(superhero, problem));
+    }
+
+    @Property
+    void abilitiesRequiredForAreTheReferenceRules(@ForAll Problem problem) {
+        assertEquals(REFERENCE_RULES.get(problem).get().toSet(), abilities.abilitiesRequiredFor(problem));
+    }
+}
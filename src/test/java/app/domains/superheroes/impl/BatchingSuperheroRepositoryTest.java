@@ -0,0 +1,108 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchingSuperheroRepositoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private BatchingSuperheroRepository repository;
+
+    @AfterEach
+    void dispose() {
+        if (repository != null) {
+            repository.dispose();
+        }
+    }
+
+    @Test
+    void concurrentLookupsAreCoalescedIntoOneBackendCall() {
+        CountingSuperheroRepository backend = new CountingSuperheroRepository(Duration.ZERO);
+        repository = new BatchingSuperheroRepository(backend, 100, Duration.ofMillis(50), 4);
+        List<String> names = List.of("luffy", "superman", "unknown");
+
+        List<Option<String>> found = Flux.range(0, 300)
+                .flatMap(i -> repository.findByName(names.get(i % names.size())).map(hero -> hero.map(h -> h.name)), 300)
+                .collect(List.collector())
+                .block(TIMEOUT);
+
+        assertEquals(300, found.size());
+        assertEquals(100, found.count(hero -> hero.contains("luffy")));
+        assertEquals(100, found.count(hero -> hero.contains("superman")));
+        assertEquals(100, found.count(Option::isEmpty));
+        assertEquals(List.of(HashSet.ofAll(names)), backend.batches());
+        assertEquals(0, backend.findByNameCalls.get());
+    }
+
+    @Test
+    void aFullBatchIsSentWithoutWaitingForTheWindow() {
+        CountingSuperheroRepository backend = new CountingSuperheroRepository(Duration.ZERO);
+        repository = new BatchingSuperheroRepository(backend, 2, Duration.ofMillis(50), 4);
+
+        Flux.just("a", "b", "c", "d", "e")
+                .flatMap(repository::findByName)
+                .blockLast(TIMEOUT);
+
+        assertEquals(3, backend.batches().size());
+        assertEquals(HashSet.of("a", "b", "c", "d", "e"), backend.batches().foldLeft(HashSet.<String>empty(), HashSet::addAll));
+    }
+
+    @Test
+    void aSlowBackendDelaysTheBatchesWithoutStoppingTheLoop() {
+        // One batch at a time, each taking longer than the window: the due batches have to wait for the slot
+        CountingSuperheroRepository backend = new CountingSuperheroRepository(Duration.ofMillis(20));
+        repository = new BatchingSuperheroRepository(backend, 1, Duration.ofMillis(1), 1);
+
+        Long answered = Flux.range(0, 20)
+                .flatMap(i -> repository.findByName("hero " + i))
+                .count()
+                .block(TIMEOUT);
+
+        assertEquals(20L, answered);
+        assertEquals(20, backend.batches().size());
+        StepVerifier.create(repository.findByName("luffy").map(hero -> hero.map(h -> h.name)))
+                .expectNext(Option.some("luffy"))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void aFailedBatchFailsItsLookupsOnly() {
+        CountingSuperheroRepository backend = new CountingSuperheroRepository(Duration.ZERO);
+        backend.failures.set(1);
+        repository = new BatchingSuperheroRepository(backend, 100, Duration.ofMillis(10), 4);
+
+        StepVerifier.create(repository.findByName("luffy"))
+                .expectErrorMessage("backend down")
+                .verify(TIMEOUT);
+        StepVerifier.create(repository.findByName("luffy").map(hero -> hero.map(h -> h.name)))
+                .expectNext(Option.some("luffy"))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void disposeFailsThePendingLookups() {
+        CountingSuperheroRepository backend = new CountingSuperheroRepository(Duration.ZERO);
+        repository = new BatchingSuperheroRepository(backend, 100, Duration.ofSeconds(10), 4);
+
+        Mono<Option<Superhero>> pending = repository.findByName("luffy").cache();
+        pending.subscribe(__ -> {}, __ -> {});
+        repository.dispose();
+
+        StepVerifier.create(pending).expectError(IllegalStateException.class).verify(TIMEOUT);
+        StepVerifier.create(repository.findByName("superman")).expectError(IllegalStateException.class).verify(TIMEOUT);
+    }
+}
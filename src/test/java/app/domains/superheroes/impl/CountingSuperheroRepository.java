@@ -0,0 +1,47 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The in memory roster, counting the lookups made on it and answering findAllByNames after a latency.
+ * The next failures calls to findAllByNames fail.
+ */
+class CountingSuperheroRepository extends InMemorySuperheroRepository {
+
+    final AtomicInteger findByNameCalls = new AtomicInteger();
+    final ConcurrentLinkedQueue<Set<String>> findAllByNamesCalls = new ConcurrentLinkedQueue<>();
+    final AtomicInteger failures = new AtomicInteger();
+    private final Duration latency;
+
+    CountingSuperheroRepository(Duration latency) {
+        this.latency = latency;
+    }
+
+    List<Set<String>> batches() {
+        return List.ofAll(findAllByNamesCalls);
+    }
+
+    @Override
+    public Mono<Option<Superhero>> findByName(String name) {
+        findByNameCalls.incrementAndGet();
+        return super.findByName(name);
+    }
+
+    @Override
+    public Mono<Map<String, Superhero>> findAllByNames(Set<String> names) {
+        findAllByNamesCalls.add(names);
+        if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return Mono.error(new IllegalStateException("backend down"));
+        }
+        return latency.isZero() ? super.findAllByNames(names) : super.findAllByNames(names).delayElement(latency);
+    }
+}
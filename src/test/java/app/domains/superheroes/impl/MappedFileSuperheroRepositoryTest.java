@@ -0,0 +1,99 @@
+package app.domains.superheroes.impl;
+
+import app.domains.abilities.Ability;
+import app.domains.superheroes.Superhero;
+import app.domains.weakness.Weakness;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileSuperheroRepositoryTest {
+
+    private static final Duration NO_COMPACTION = Duration.ofDays(1);
+
+    @TempDir
+    Path directory;
+
+    private static Superhero hero(String name, boolean available) {
+        return Superhero.builder()
+                .id(name + "-id")
+                .name(name)
+                .isAvailable(available)
+                .abilities(List.of(Ability.Fly, Ability.Strength))
+                .weaknesses(List.of(Weakness.Water))
+                .build();
+    }
+
+    @Test
+    void writesAreFoundAfterReopening() throws Exception {
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            repository.save(hero("luffy", true)).block();
+            repository.save(hero("superman", true)).block();
+            repository.delete("superman").block();
+        }
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            assertEquals(Option.some(hero("luffy", true)), repository.findByName("LUFFY").block());
+            assertEquals(Option.none(), repository.findByName("superman").block());
+        }
+    }
+
+    @Test
+    void aFileIsNewUntilItsFirstWrite() throws Exception {
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            assertTrue(repository.isNew());
+            repository.save(hero("luffy", true)).block();
+            repository.delete("luffy").block();
+        }
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            assertFalse(repository.isNew());
+        }
+    }
+
+    @Test
+    void namesLongerThanAShortButFittingAnUnsignedShortAreKept() throws Exception {
+        String name = "a".repeat(40_000);
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            repository.save(hero(name, true)).block();
+            assertEquals(Option.some(hero(name, true)), repository.findByName(name).block());
+        }
+    }
+
+    @Test
+    void namesOverTheLimitAreRejected() throws Exception {
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            StepVerifier.create(repository.save(hero("a".repeat(70_000), true)))
+                    .expectError(IllegalArgumentException.class)
+                    .verify();
+            assertEquals(0L, repository.findAll().count().block());
+        }
+    }
+
+    @Test
+    void compactionKeepsTheLatestVersionOfEachSuperhero() throws Exception {
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(hero("hero " + (i % 10), i % 2 == 0)).block();
+            }
+            repository.delete("hero 0").block();
+            repository.compact();
+            repository.save(hero("after compaction", true)).block();
+
+            assertEquals(10L, repository.findAll().count().block());
+            assertEquals(Option.none(), repository.findByName("hero 0").block());
+            assertEquals(Option.some(hero("hero 9", false)), repository.findByName("hero 9").block());
+        }
+        try (MappedFileSuperheroRepository repository = new MappedFileSuperheroRepository(directory, NO_COMPACTION)) {
+            assertEquals(10L, repository.findAll().count().block());
+            assertEquals(Option.some(hero("after compaction", true)), repository.findByName("after compaction").block());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package app.domains.superheroes.impl;
+
+import app.domains.superheroes.Superhero;
+import app.domains.superheroes.SuperheroChange;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The lookups run on the parallel scheduler, whose threads play the event loop role: BlockHound fails them if the
+ * repository, the pool or the driver blocks.
+ */
+class R2dbcSuperheroRepositoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int HEROES = 100;
+
+    private ConnectionPool pool;
+    private R2dbcSuperheroRepository repository;
+    private List<String> names;
+
+    @BeforeAll
+    static void installBlockHound() {
+        BlockHound.install();
+    }
+
+    @BeforeEach
+    void setup() {
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1"))
+                .initialSize(2)
+                .maxSize(4)
+                .maxAcquireTime(Duration.ofSeconds(5))
+                .build());
+        repository = new R2dbcSuperheroRepository(pool);
+        repository.createSchema().block(TIMEOUT);
+        names = List.range(0, HEROES).map(i -> "hero" + i);
+        Flux.fromIterable(names).concatMap(name -> repository.save(new Superhero(name, name))).blockLast(TIMEOUT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    void findByNameNeverBlocks() {
+        // More lookups than connections, so some of them wait for the pool
+        StepVerifier.create(Flux.range(0, 10 * HEROES)
+                        .flatMap(i -> repository.findByName(names.get(i % HEROES).toUpperCase()).subscribeOn(Schedulers.parallel()), 64)
+                        .filter(Option::isDefined)
+                        .count())
+                .expectNext((long) 10 * HEROES)
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    void isEmptyOnlyWithoutRows() {
+        assertEquals(false, repository.isEmpty().block(TIMEOUT));
+        Flux.fromIterable(names).concatMap(repository::delete).blockLast(TIMEOUT);
+        assertEquals(true, repository.isEmpty().block(TIMEOUT));
+    }
+
+    @Test
+    void theSavesOfANameArePublishedInTheOrderTheyWereApplied() {
+        int writes = 50;
+        CompletableFuture<java.util.List<SuperheroChange>> published = repository.changes().take(writes).collectList().toFuture();
+        Flux.range(0, writes)
+                .flatMap(i -> repository.save(new Superhero(String.valueOf(i), "hero0")).subscribeOn(Schedulers.parallel()), 16)
+                .blockLast(TIMEOUT);
+
+        // Each change replaces the row the previous one wrote, the last one wrote the row in the table
+        List<SuperheroChange> changes = List.ofAll(published.join());
+        changes.sliding(2).forEach(pair -> assertEquals(pair.get(0).current(), pair.get(1).previous()));
+        assertEquals(changes.last().current(), repository.findByName("hero0").block(TIMEOUT));
+    }
+
+    @Test
+    void findAllByNamesNeverBlocks() {
+        StepVerifier.create(repository.findAllByNames(HashSet.ofAll(names.take(10)).add("unknown")).subscribeOn(Schedulers.parallel()))
+                .assertNext(found -> assertEquals(HashSet.ofAll(names.take(10)), found.keySet()))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+}
@@ -0,0 +1,63 @@
+package app.domains.weakness;
+
+import app.domains.superheroes.Superhero;
+import app.entities.Problem;
+import io.IO;
+import io.vavr.Tuple0;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bitmask matching answers like the former list based implementation, kept here as the reference,
+ * for any weaknesses (duplicates and order included) and any problem.
+ */
+class WeaknessesTest {
+
+    private static final Map<Problem, List<Weakness>> REFERENCE_RULES = HashMap.of(
+            Problem.BanditInTown, List.of(Weakness.Fearfull),
+            Problem.CarAccident, List.of(Weakness.Dumb),
+            Problem.FellIntoWater, List.of(Weakness.Water),
+            Problem.SuperVilain, List.of(Weakness.TooNice, Weakness.Cryptonic, Weakness.Borderline)
+    );
+
+    private final Weaknesses weaknesses = new Weaknesses();
+
+    private static IO<WeaknessesError, Tuple0> referenceCheckWeaknesses(Superhero superhero, Problem problem) {
+        List<Weakness> requiredWeaknesses = REFERENCE_RULES.getOrElse(problem, List.empty());
+        List<Weakness> usableWeaknesses = superhero.weaknesses.filter(requiredWeaknesses::contains);
+        if (usableWeaknesses.isEmpty()) {
+            return IO.unit();
+        } else {
+            return IO.error(new WeaknessesError.WeaknessMatchError(usableWeaknesses));
+        }
+    }
+
+    private static Superhero hero(java.util.List<Weakness> heroWeaknesses) {
+        return Superhero.builder()
+                .id("hero")
+                .name("hero")
+                .isAvailable(true)
+                .abilities(List.empty())
+                .weaknesses(List.ofAll(heroWeaknesses))
+                .build();
+    }
+
+    @Property
+    void checkWeaknessesMatchesTheReference(@ForAll java.util.List<Weakness> heroWeaknesses, @ForAll Problem problem) {
+        Superhero superhero = hero(heroWeaknesses);
+        assertEquals(referenceCheckWeaknesses(superhero, problem).block(), weaknesses.checkWeaknesses(superhero, problem).block());
+    }
+
+    @Property
+    void countMatchingWeaknessesCountsTheDistinctMatchingWeaknesses(@ForAll java.util.List<Weakness> heroWeaknesses, @ForAll Problem problem) {
+        Superhero superhero = hero(heroWeaknesses);
+        int expected = referenceCheckWeaknesses(superhero, problem).block()
+                .fold(error -> ((WeaknessesError.WeaknessMatchError) error).weaknesses().distinct().size(), ok -> 0);
+        assertEquals(expected, weaknesses.countMatchingWeaknesses(superhero, problem));
+    }
+}
@@ -0,0 +1,70 @@
+package app.service;
+
+import app.domains.abilities.Abilities;
+import app.domains.superheroes.SuperheroChange;
+import app.domains.superheroes.impl.InMemorySuperheroRepository;
+import app.domains.weakness.Weaknesses;
+import app.entities.Problem;
+import app.service.StandingAssignmentsService.AssignmentDelta;
+import app.service.StandingAssignmentsService.AssignmentQuery;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StandingAssignmentsServiceTest {
+
+    private final AtomicInteger feedSubscriptions = new AtomicInteger();
+    private final AtomicInteger feedCancellations = new AtomicInteger();
+    private final InMemorySuperheroRepository repository = new InMemorySuperheroRepository() {
+        @Override
+        public Flux<SuperheroChange> changes() {
+            return super.changes()
+                    .doOnSubscribe(__ -> feedSubscriptions.incrementAndGet())
+                    .doOnCancel(feedCancellations::incrementAndGet);
+        }
+    };
+    private final StandingAssignmentsService service = new StandingAssignmentsService(repository, new Abilities(), new Weaknesses(), 16);
+    private final AssignmentQuery query = new AssignmentQuery(Problem.SuperVilain, false, 1);
+
+    @Test
+    void watchersOfAQueryShareOneAnswerDroppedWithTheLastOne() {
+        Disposable first = service.watch(query).subscribe();
+        Disposable second = service.watch(query).subscribe();
+        assertEquals(1, feedSubscriptions.get());
+
+        first.dispose();
+        assertEquals(0, feedCancellations.get());
+        second.dispose();
+        assertEquals(1, feedCancellations.get());
+
+        service.watch(query).subscribe().dispose();
+        assertEquals(2, feedSubscriptions.get());
+        assertEquals(2, feedCancellations.get());
+    }
+
+    @Test
+    void aSuperheroIsNamedAsStoredWhateverTheCaseOfTheWrite() {
+        // superman is exposed to the problem through his weakness, luffy is the whole answer
+        StepVerifier.create(service.watch(query))
+                .expectNextMatches(delta -> delta.type() == AssignmentDelta.Type.ADDED && delta.name().equals("luffy"))
+                .then(() -> repository.delete("LUFFY").block())
+                .expectNextMatches(delta -> delta.type() == AssignmentDelta.Type.REMOVED && delta.name().equals("luffy"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void minMatchingAbilitiesIsBoundedByTheUsefulAbilities() {
+        int max = service.maxMatchingAbilities(Problem.SuperVilain);
+        StepVerifier.create(service.watch(new AssignmentQuery(Problem.SuperVilain, false, max + 1)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        assertEquals(0, feedSubscriptions.get());
+    }
+}
@@ -0,0 +1,106 @@
+package io;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    private final VirtualTimeScheduler clock = VirtualTimeScheduler.getOrSet();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 2, 0.5, Duration.ofSeconds(1), 1, new SimpleMeterRegistry());
+
+    @AfterEach
+    void resetClock() {
+        VirtualTimeScheduler.reset();
+    }
+
+    private Either<String, String> call(IO<String, String> io) {
+        return breaker.protect(io, error -> true, () -> "open").unlift().block();
+    }
+
+    private Disposable start() {
+        return breaker.protect(IO.<String, String>fromMono(Mono.never()), error -> true, () -> "open").unlift().subscribe();
+    }
+
+    private void open() {
+        call(IO.error("boom"));
+        call(IO.error("boom"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void aCancelledTrialCallGivesItsPermitBack() {
+        open();
+        clock.advanceTimeBy(Duration.ofSeconds(1));
+
+        Disposable trial = start();
+        assertEquals(Either.left("open"), call(IO.succeed("hero")));
+        trial.dispose();
+
+        assertEquals(Either.right("hero"), call(IO.succeed("hero")));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void aCallStartedBeforeTheCircuitOpenedDoesNotAddATrialPermit() {
+        Disposable beforeOpening = start();
+        open();
+        clock.advanceTimeBy(Duration.ofSeconds(1));
+
+        Disposable trial = start();
+        beforeOpening.dispose();
+        assertEquals(Either.left("open"), call(IO.succeed("hero")));
+
+        trial.dispose();
+        assertEquals(Either.right("hero"), call(IO.succeed("hero")));
+    }
+
+    @Test
+    void aSlowCallStartedBeforeTheCircuitOpenedDoesNotDecideTheHalfOpenPeriod() {
+        AtomicReference<Either<String, String>> slowResult = new AtomicReference<>();
+        breaker.protect(IO.<String, String>fromMono(Mono.delay(Duration.ofMillis(1500)).thenReturn("hero")), error -> true, () -> "open")
+                .unlift()
+                .subscribe(slowResult::set);
+        open();
+        clock.advanceTimeBy(Duration.ofSeconds(1));
+
+        Disposable trial = start();
+        // the slow call succeeds while the trial call is in progress
+        clock.advanceTimeBy(Duration.ofMillis(500));
+        assertEquals(Either.right("hero"), slowResult.get());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals(Either.left("open"), call(IO.succeed("hero")));
+
+        trial.dispose();
+        assertEquals(Either.right("hero"), call(IO.succeed("hero")));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void aTrialCallOfAnEarlierHalfOpenPeriodDoesNotAddATrialPermit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 2, 0.5, Duration.ofSeconds(1), 2, new SimpleMeterRegistry());
+        breaker.protect(IO.<String, String>error("boom"), error -> true, () -> "open").unlift().block();
+        breaker.protect(IO.<String, String>error("boom"), error -> true, () -> "open").unlift().block();
+        clock.advanceTimeBy(Duration.ofSeconds(1));
+
+        // one trial call hangs, the other one fails and opens the circuit again
+        Disposable staleTrial = breaker.protect(IO.<String, String>fromMono(Mono.never()), error -> true, () -> "open").unlift().subscribe();
+        breaker.protect(IO.<String, String>error("boom"), error -> true, () -> "open").unlift().block();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        clock.advanceTimeBy(Duration.ofSeconds(1));
+
+        breaker.protect(IO.<String, String>fromMono(Mono.never()), error -> true, () -> "open").unlift().subscribe();
+        breaker.protect(IO.<String, String>fromMono(Mono.never()), error -> true, () -> "open").unlift().subscribe();
+        staleTrial.dispose();
+        assertEquals(Either.left("open"), breaker.protect(IO.<String, String>succeed("hero"), error -> true, () -> "open").unlift().block());
+    }
+}
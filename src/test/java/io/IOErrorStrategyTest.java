@@ -0,0 +1,81 @@
+package io;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Seq;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * With failFast and firstErrors, the branches still running when the result is known are cancelled and the ones
+ * not started yet are never subscribed to. Each branch stands for a repository call and counts both.
+ */
+class IOErrorStrategyTest {
+
+    private final AtomicInteger subscribed = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    private IO<String, Integer> succeedAfter(long millis, int value) {
+        return call(Mono.delay(Duration.ofMillis(millis)).thenReturn(Either.right(value)));
+    }
+
+    private IO<String, Integer> failAfter(long millis, String error) {
+        return call(Mono.delay(Duration.ofMillis(millis)).thenReturn(Either.left(error)));
+    }
+
+    private IO<String, Integer> call(Mono<Either<String, Integer>> result) {
+        return IO.fromMonoEither(result
+                .doOnSubscribe(__ -> subscribed.incrementAndGet())
+                .doOnCancel(cancelled::incrementAndGet));
+    }
+
+    @Test
+    void failFastCancelsTheBranchesInFlightAndNeverStartsTheOthers() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(succeedAfter(100, 1), failAfter(10, "second"), succeedAfter(100, 3), succeedAfter(100, 4)), 3, ErrorStrategy.failFast()).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext(Either.left(Errors.of("second")))
+                .verifyComplete();
+        assertEquals(3, subscribed.get());
+        assertEquals(2, cancelled.get());
+    }
+
+    @Test
+    void firstErrorsEndsOnceEnoughErrorsAreIn() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(failAfter(20, "first"), succeedAfter(100, 2), failAfter(10, "third"), succeedAfter(100, 4)), 4, ErrorStrategy.firstErrors(2)).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(19))
+                .thenAwait(Duration.ofMillis(1))
+                // in the order of the branches, not of completion
+                .expectNext(Either.left(Errors.of("first", "third")))
+                .verifyComplete();
+        assertEquals(4, subscribed.get());
+        assertEquals(2, cancelled.get());
+    }
+
+    @Test
+    void accumulateAllRunsEveryBranch() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(succeedAfter(100, 1), failAfter(10, "second"), succeedAfter(100, 3)), 3, ErrorStrategy.accumulateAll()).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext(Either.left(Errors.of("second")))
+                .verifyComplete();
+        assertEquals(3, subscribed.get());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    void anEmptyBranchIsDroppedWhateverTheStrategy() {
+        for (ErrorStrategy strategy : List.of(ErrorStrategy.accumulateAll(), ErrorStrategy.failFast(), ErrorStrategy.firstErrors(2))) {
+            StepVerifier.create(IO.parSequence(List.of(succeedAfter(0, 1), call(Mono.empty()), succeedAfter(0, 3)), strategy).unlift())
+                    .expectNext(Either.<Errors<String>, Seq<Integer>>right(List.of(1, 3)))
+                    .verifyComplete();
+        }
+    }
+}
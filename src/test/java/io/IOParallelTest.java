@@ -0,0 +1,84 @@
+package io;
+
+import io.vavr.Tuple;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The branches of parZip / parSequence run at the same time: on the virtual clock, the whole takes as long as
+ * the slowest branch, not the sum of the branches.
+ */
+class IOParallelTest {
+
+    private static <A> IO<String, A> succeedAfter(long millis, A value) {
+        return IO.fromMono(Mono.delay(Duration.ofMillis(millis)).thenReturn(value));
+    }
+
+    private static <A> IO<String, A> failAfter(long millis, String error) {
+        return IO.fromMonoEither(Mono.delay(Duration.ofMillis(millis)).thenReturn(Either.left(error)));
+    }
+
+    @Test
+    void parZipTakesAsLongAsTheSlowestBranch() {
+        StepVerifier.withVirtualTime(() -> IO.parZip(succeedAfter(100, "a"), succeedAfter(200, "b"), succeedAfter(50, "c")).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(199))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right(Tuple.of("a", "b", "c")))
+                .verifyComplete();
+    }
+
+    @Test
+    void parZipAccumulatesTheErrorsInArgumentOrder() {
+        StepVerifier.withVirtualTime(() -> IO.parZip(failAfter(200, "first"), succeedAfter(10, "b"), failAfter(100, "third")).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext(Either.left(Errors.of("first", "third")))
+                .verifyComplete();
+    }
+
+    @Test
+    void parSequenceTakesAsLongAsTheSlowestBranch() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(succeedAfter(300, 1), succeedAfter(200, 2), succeedAfter(100, 3))).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(299))
+                .thenAwait(Duration.ofMillis(1))
+                // input order, not completion order
+                .expectNext(Either.right(List.of(1, 2, 3)))
+                .verifyComplete();
+    }
+
+    @Test
+    void parSequenceRunsAtMostConcurrencyBranchesAtOnce() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(succeedAfter(100, 1), succeedAfter(100, 2), succeedAfter(100, 3), succeedAfter(100, 4)), 2).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(199))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right(List.of(1, 2, 3, 4)))
+                .verifyComplete();
+    }
+
+    @Test
+    void parSequenceAccumulatesTheErrorsInInputOrder() {
+        StepVerifier.withVirtualTime(() -> IO.parSequence(List.of(failAfter(200, "first"), succeedAfter(50, 2), failAfter(100, "third"))).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext(Either.left(Errors.of("first", "third")))
+                .verifyComplete();
+    }
+
+    @Test
+    void parSequenceSubscribesOnTheScheduler() {
+        StepVerifier.create(IO.parSequence(List.of(IO.<String, String>suspend(() -> Thread.currentThread().getName()), IO.suspend(() -> "b")), 2, Schedulers.boundedElastic()).unlift())
+                .assertNext(result -> assertTrue(result.get().head().startsWith("boundedElastic"), result.get().head()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,225 @@
+package io;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * timeout, retry and hedge on the virtual clock, alone and chained the way SuperHeroes.lookForSuperhero chains them.
+ */
+class IOResilienceTest {
+
+    /**
+     * A backend playing one scripted answer per subscription, the last one again once the script is over.
+     */
+    private static final class Backend {
+
+        private final List<Supplier<Mono<Either<String, String>>>> script;
+        private final AtomicInteger subscriptions = new AtomicInteger();
+        private final AtomicInteger cancellations = new AtomicInteger();
+
+        @SafeVarargs
+        private Backend(Supplier<Mono<Either<String, String>>>... script) {
+            this.script = List.of(script);
+        }
+
+        private IO<String, String> call() {
+            return IO.fromMonoEither(Mono.defer(() -> {
+                int attempt = subscriptions.getAndIncrement();
+                return script.get(Math.min(attempt, script.size() - 1)).get().doOnCancel(cancellations::incrementAndGet);
+            }));
+        }
+    }
+
+    private static Supplier<Mono<Either<String, String>>> succeedAfter(long millis, String value) {
+        return () -> Mono.delay(Duration.ofMillis(millis)).thenReturn(Either.right(value));
+    }
+
+    private static Supplier<Mono<Either<String, String>>> leftAfter(long millis, String error) {
+        return () -> Mono.delay(Duration.ofMillis(millis)).thenReturn(Either.left(error));
+    }
+
+    private static Supplier<Mono<Either<String, String>>> throwAfter(long millis) {
+        return () -> Mono.delay(Duration.ofMillis(millis)).then(Mono.error(new IllegalStateException("backend down")));
+    }
+
+    private static Supplier<Mono<Either<String, String>>> never() {
+        return Mono::never;
+    }
+
+    @Test
+    void timeoutTurnsALateResultIntoTheError() {
+        Backend backend = new Backend(succeedAfter(200, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().timeout(Duration.ofMillis(100), () -> "timeout").unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.left("timeout"))
+                .verifyComplete();
+        assertEquals(1, backend.cancellations.get());
+    }
+
+    @Test
+    void timeoutLetsAnEarlyResultThrough() {
+        Backend backend = new Backend(succeedAfter(50, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().timeout(Duration.ofMillis(100), () -> "timeout").unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext(Either.right("hero"))
+                .verifyComplete();
+    }
+
+    @Test
+    void retryResubscribesAfterAnException() {
+        Backend backend = new Backend(throwAfter(10), throwAfter(10), succeedAfter(10, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().retry(Retry.fixedDelay(3, Duration.ofMillis(100))).unlift())
+                .expectSubscription()
+                // 10ms, 100ms backoff, 10ms, 100ms backoff, 10ms
+                .expectNoEvent(Duration.ofMillis(229))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right("hero"))
+                .verifyComplete();
+        assertEquals(3, backend.subscriptions.get());
+    }
+
+    @Test
+    void retryNeverRetriesALeft() {
+        Backend backend = new Backend(leftAfter(10, "unknown"), succeedAfter(10, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().retry(Retry.fixedDelay(3, Duration.ofMillis(100))).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext(Either.left("unknown"))
+                .verifyComplete();
+        assertEquals(1, backend.subscriptions.get());
+    }
+
+    @Test
+    void retryGivesUpOnceThePolicyIsExhausted() {
+        Backend backend = new Backend(throwAfter(10));
+        StepVerifier.withVirtualTime(() -> backend.call().retry(Retry.fixedDelay(2, Duration.ofMillis(100))).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(230))
+                .expectErrorMatches(Exceptions::isRetryExhausted)
+                .verify();
+        assertEquals(3, backend.subscriptions.get());
+    }
+
+    @Test
+    void hedgeKeepsTheFirstAnswerAndCancelsTheOther() {
+        Backend backend = new Backend(succeedAfter(500, "slow"), succeedAfter(50, "fast"));
+        StepVerifier.withVirtualTime(() -> backend.call().hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(149))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right("fast"))
+                .verifyComplete();
+        assertEquals(2, backend.subscriptions.get());
+        assertEquals(1, backend.cancellations.get());
+    }
+
+    @Test
+    void hedgeDoesNotFireBeforeTheDelay() {
+        Backend backend = new Backend(succeedAfter(50, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext(Either.right("hero"))
+                .verifyComplete();
+        assertEquals(1, backend.subscriptions.get());
+    }
+
+    @Test
+    void hedgeDoesNotLetAFastExceptionBeatASlowerAnswer() {
+        Backend backend = new Backend(succeedAfter(300, "slow"), throwAfter(10));
+        StepVerifier.withVirtualTime(() -> backend.call().hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(299))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right("slow"))
+                .verifyComplete();
+        assertEquals(2, backend.subscriptions.get());
+    }
+
+    @Test
+    void hedgeFailsOnceBothCopiesFailed() {
+        Backend backend = new Backend(throwAfter(200));
+        StepVerifier.withVirtualTime(() -> backend.call().hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(299))
+                .thenAwait(Duration.ofMillis(1))
+                .expectErrorMatches(e -> e instanceof IllegalStateException)
+                .verify();
+        assertEquals(2, backend.subscriptions.get());
+    }
+
+    @Test
+    void hedgeFailsAtOnceWhenTheFirstCopyFailsBeforeTheDelay() {
+        Backend backend = new Backend(throwAfter(10), succeedAfter(10, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call().hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(10))
+                .expectErrorMatches(e -> e instanceof IllegalStateException)
+                .verify();
+        assertEquals(1, backend.subscriptions.get());
+    }
+
+    @Test
+    void hedgeRecordsTheLatencyOfTheCancelledCopy() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Backend backend = new Backend(succeedAfter(500, "slow"), succeedAfter(50, "fast"));
+        StepVerifier.withVirtualTime(() -> backend.call().metrics(IOMetrics.of(registry, "backend")).hedge(Duration.ofMillis(100)).unlift())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext(Either.right("fast"))
+                .verifyComplete();
+        assertEquals(1, registry.get("io.stage").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("io.stage").tag("outcome", "cancelled").timer().count());
+    }
+
+    @Test
+    void chainRetriesAFailureThenHedgesAStuckCall() {
+        // The first call fails at 10ms and is retried at 20ms, that call is stuck and hedged at 120ms
+        Backend backend = new Backend(throwAfter(10), never(), succeedAfter(30, "hero"));
+        StepVerifier.withVirtualTime(() -> backend.call()
+                        .hedge(Duration.ofMillis(100))
+                        .retry(Retry.fixedDelay(1, Duration.ofMillis(10)))
+                        .timeout(Duration.ofSeconds(1), () -> "timeout")
+                        .unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(149))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right("hero"))
+                .verifyComplete();
+        assertEquals(3, backend.subscriptions.get());
+        assertEquals(1, backend.cancellations.get());
+    }
+
+    @Test
+    void chainTimeoutBoundsTheRetriesAndHedges() {
+        Backend backend = new Backend(never());
+        StepVerifier.withVirtualTime(() -> backend.call()
+                        .hedge(Duration.ofMillis(100))
+                        .retry(Retry.fixedDelay(3, Duration.ofMillis(10)))
+                        .timeout(Duration.ofSeconds(1), () -> "timeout")
+                        .unlift())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(999))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.left("timeout"))
+                .verifyComplete();
+        // The hedged pair is cancelled by the timeout
+        assertEquals(2, backend.subscriptions.get());
+        assertEquals(2, backend.cancellations.get());
+    }
+}
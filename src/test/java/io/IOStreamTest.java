@@ -0,0 +1,180 @@
+package io;
+
+import io.vavr.Tuple;
+import io.vavr.collection.List;
+import io.vavr.collection.Seq;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The error policies of IOStream, its parallel maps on the virtual clock and its batches.
+ */
+class IOStreamTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @SafeVarargs
+    private static IOStream<String, Integer> stream(Either<String, Integer>... results) {
+        return IOStream.fromFluxEither(Flux.just(results));
+    }
+
+    private IO<String, Integer> succeedAfter(long millis, int value) {
+        return IO.fromMono(Mono.delay(Duration.ofMillis(millis))
+                .thenReturn(value)
+                .doOnSubscribe(__ -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(__ -> inFlight.decrementAndGet()));
+    }
+
+    @Test
+    void failFastEndsAfterTheFirstError() {
+        StepVerifier.create(stream(Either.right(1), Either.left("a"), Either.right(2), Either.left("b")).failFast().toFlux())
+                .expectNext(Either.right(1), Either.left("a"))
+                .verifyComplete();
+    }
+
+    @Test
+    void valuesHandsTheErrorsOverAndGoesOn() {
+        java.util.List<String> errors = new ArrayList<>();
+        StepVerifier.create(stream(Either.right(1), Either.left("a"), Either.right(2), Either.left("b")).values(errors::add))
+                .expectNext(1, 2)
+                .verifyComplete();
+        assertEquals(java.util.List.of("a", "b"), errors);
+    }
+
+    @Test
+    void collectSkippingKeepsTheValuesAndTheErrors() {
+        StepVerifier.create(stream(Either.right(1), Either.left("a"), Either.right(2), Either.left("b")).collectSkipping())
+                .expectNext(Tuple.of(List.of(1, 2), Errors.of("a", "b")))
+                .verifyComplete();
+    }
+
+    @Test
+    void collectKeepsAllTheValues() {
+        StepVerifier.create(stream(Either.right(1), Either.right(2)).collect().unlift())
+                .expectNext(Either.<String, Seq<Integer>>right(List.of(1, 2)))
+                .verifyComplete();
+        StepVerifier.create(stream().collect().unlift())
+                .expectNext(Either.<String, Seq<Integer>>right(List.empty()))
+                .verifyComplete();
+    }
+
+    @Test
+    void collectStopsAtTheFirstError() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        IOStream<String, Integer> stream = IOStream.fromFluxEither(Flux.<Either<String, Integer>>just(Either.right(1), Either.left("a"))
+                .concatWith(Flux.never())
+                .doOnCancel(() -> cancelled.set(true)));
+        StepVerifier.create(stream.collect().unlift())
+                .expectNext(Either.left("a"))
+                .verifyComplete();
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void collectSeesAnErrorEndingTheStream() {
+        StepVerifier.create(stream(Either.right(1), Either.right(2), Either.left("a")).collect().unlift())
+                .expectNext(Either.left("a"))
+                .verifyComplete();
+    }
+
+    @Test
+    void collectAccumulatingKeepsTheValuesInOrder() {
+        StepVerifier.create(stream(Either.right(1), Either.right(2), Either.right(3)).collectAccumulating().unlift())
+                .expectNext(Either.<Errors<String>, Seq<Integer>>right(List.of(1, 2, 3)))
+                .verifyComplete();
+    }
+
+    @Test
+    void collectAccumulatingDropsTheValuesOnceAnErrorIsFound() {
+        StepVerifier.create(stream(Either.right(1), Either.left("a"), Either.right(2), Either.left("b"), Either.right(3)).collectAccumulating().unlift())
+                .expectNext(Either.left(Errors.of("a", "b")))
+                .verifyComplete();
+    }
+
+    @Test
+    void parMapOrderedEmitsInTheOrderOfTheStream() {
+        // 1 and 2 start at once, 3 starts when 2 ends at 100ms, 4 when 3 ends at 200ms
+        int[] millis = {0, 350, 100, 100, 100};
+        StepVerifier.withVirtualTime(() -> IOStream.<String, Integer>fromIterable(List.of(1, 2, 3, 4))
+                        .parMapOrdered(2, value -> succeedAfter(millis[value], value))
+                        .toFlux())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(349))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right(1), Either.right(2), Either.right(3), Either.right(4))
+                .verifyComplete();
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void parMapUnorderedEmitsAsSoonAsAResultIsIn() {
+        int[] millis = {0, 350, 100, 100, 100};
+        StepVerifier.withVirtualTime(() -> IOStream.<String, Integer>fromIterable(List.of(1, 2, 3, 4))
+                        .parMapUnordered(2, value -> succeedAfter(millis[value], value))
+                        .toFlux())
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext(Either.right(2))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext(Either.right(3))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext(Either.right(4))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext(Either.right(1))
+                .verifyComplete();
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void parMapPassesTheErrorsThrough() {
+        AtomicInteger calls = new AtomicInteger();
+        StepVerifier.create(stream(Either.right(1), Either.left("a"), Either.right(2))
+                        .parMapOrdered(2, value -> {
+                            calls.incrementAndGet();
+                            return IO.<String, Integer>succeed(value * 10);
+                        })
+                        .toFlux())
+                .expectNext(Either.right(10), Either.left("a"), Either.right(20))
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void batchEmitsAnErrorBetweenTheValuesAroundIt() {
+        StepVerifier.create(stream(Either.right(1), Either.right(2), Either.left("a"), Either.right(3)).batch(10, Duration.ofSeconds(1)).toFlux())
+                .expectNext(Either.right(List.of(1, 2)), Either.left("a"), Either.right(List.of(3)))
+                .verifyComplete();
+    }
+
+    @Test
+    void batchCutsAtMaxSize() {
+        StepVerifier.create(stream(Either.right(1), Either.right(2), Either.right(3), Either.left("a")).batch(2, Duration.ofSeconds(1)).toFlux())
+                .expectNext(Either.right(List.of(1, 2)), Either.right(List.of(3)), Either.left("a"))
+                .verifyComplete();
+    }
+
+    @Test
+    void batchEmitsAfterMaxWait() {
+        StepVerifier.withVirtualTime(() -> IOStream.<String, Integer>fromFlux(Flux.just(1, 2).concatWith(Flux.never()))
+                        .batch(10, Duration.ofMillis(100))
+                        .toFlux())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(Either.right(List.of(1, 2)))
+                .thenCancel()
+                .verify();
+    }
+}